@@ -0,0 +1,97 @@
+package com.oracleinternship;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sizing the columns of a filled sheet: POI's {@code autoSizeColumn}, which lays out every cell's text
+ * with AWT fonts, against the {@link ColumnWidthEstimator} the writer uses instead. One operation sizes
+ * every column of the sheet.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+public class ColumnSizingBenchmark {
+
+    // autoSizeColumn on 100k rows takes minutes per operation
+    @Param({"1000", "10000"})
+    public int issues;
+
+    private List<Ticket> tickets;
+    private ColumnPlan plan;
+    private XSSFWorkbook workbook;
+    private XSSFSheet sheet;
+
+    @Setup
+    public void fill() throws IOException {
+        plan = ColumnPlan.defaultPlan();
+        tickets = WriteBenchmark.tickets(plan, issues);
+        workbook = new XSSFWorkbook();
+        sheet = workbook.createSheet("benchmark");
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < plan.size(); i++) {
+            header.createCell(i).setCellValue(plan.header(i));
+        }
+        for (int r = 0; r < tickets.size(); r++) {
+            Row row = sheet.createRow(r + 1);
+            for (int i = 0; i < plan.size(); i++) {
+                row.createCell(i).setCellValue(plan.text(i, tickets.get(r)));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        workbook.close();
+    }
+
+    @Benchmark
+    public XSSFSheet autoSizeColumn() {
+        for (int i = 0; i < plan.size(); i++) {
+            sheet.autoSizeColumn(i);
+        }
+        return sheet;
+    }
+
+    @Benchmark
+    public int estimate() {
+        List<ColumnPlan.Column> columns = plan.columns();
+        ColumnWidthEstimator widths = new ColumnWidthEstimator(columns.size());
+        int total = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).maxWidth > 0) {
+                widths.cap(i, columns.get(i).maxWidth);
+            }
+            widths.measureHeader(i, columns.get(i).header);
+        }
+        for (Ticket ticket : tickets) {
+            for (int i = 0; i < columns.size(); i++) {
+                widths.measure(i, plan.text(i, ticket));
+            }
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            total += widths.width(i);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,40 @@
+package com.oracleinternship;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building the date range JQL, with only the dates and with a project, assignee and three issue types.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JqlBenchmark {
+
+    private final LocalDate start = LocalDate.of(2025, 11, 1);
+    private final LocalDate end = LocalDate.of(2025, 11, 30);
+    private final List<String> issueTypes = List.of("Issue Investigation", "Bug", "Customer's Request");
+
+    @Benchmark
+    public String datesOnly() {
+        return JiraApiClient.buildJql(start, end, null, "All Projects", null);
+    }
+
+    @Benchmark
+    public String fullScope() {
+        return JiraApiClient.buildJql(start, end, "O'Brien", "DTVIEWER", issueTypes);
+    }
+}
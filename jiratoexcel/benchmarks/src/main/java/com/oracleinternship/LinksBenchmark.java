@@ -0,0 +1,51 @@
+package com.oracleinternship;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.oracleinternship.benchmarks.SyntheticIssues;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Sorting an issue's links into the Defect Jira and the other linked issues ({@code getSeparatedLinks}), per
+ * issue, over issues with zero to three links.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinksBenchmark {
+
+    private static final int ISSUES = 1000;
+
+    private JsonNode[] issueLinks;
+
+    @Setup
+    public void generate() {
+        SyntheticIssues generator = SyntheticIssues.load("issuelinks", "https://jira.example.com");
+        issueLinks = new JsonNode[ISSUES];
+        for (int i = 0; i < ISSUES; i++) {
+            issueLinks[i] = generator.issueLinks(i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ISSUES)
+    public void separateLinks(Blackhole blackhole) {
+        for (JsonNode links : issueLinks) {
+            blackhole.consume(JsonParser.getSeparatedLinks(links));
+        }
+    }
+}
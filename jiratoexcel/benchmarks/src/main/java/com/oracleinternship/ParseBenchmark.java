@@ -0,0 +1,73 @@
+package com.oracleinternship;
+
+import com.oracleinternship.benchmarks.SyntheticIssues;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Decoding a whole search of {@code issues} issues, a page of 1000 at a time as Jira returns them: the
+ * tree-based {@link JsonParser#parseSearchResults()} against the streaming {@link JsonParser#readSearchPage}
+ * the client uses. One operation is the whole search.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ParseBenchmark {
+
+    static final int PAGE_SIZE = 1000;
+    // Larger searches cycle through this many distinct pages instead of holding every page in memory
+    static final int DISTINCT_PAGES = 10;
+
+    @Param({"1000", "10000", "100000"})
+    public int issues;
+
+    private byte[][] pages;
+    private String[] pageText;
+    private List<String> extraPaths;
+    private int pageCount;
+
+    @Setup
+    public void generate() {
+        ColumnPlan plan = ColumnPlan.defaultPlan();
+        extraPaths = plan.extraFieldPaths();
+        SyntheticIssues generator = SyntheticIssues.load(plan.searchFields(), "https://jira.example.com");
+        pages = generator.searchPages(Math.min(issues, PAGE_SIZE * DISTINCT_PAGES), PAGE_SIZE).toArray(new byte[0][]);
+        pageText = new String[pages.length];
+        for (int i = 0; i < pages.length; i++) {
+            pageText[i] = new String(pages[i], StandardCharsets.UTF_8);
+        }
+        pageCount = (issues + PAGE_SIZE - 1) / PAGE_SIZE;
+    }
+
+    @Benchmark
+    public void treeParse(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < pageCount; i++) {
+            blackhole.consume(new JsonParser(pageText[i % pageText.length]).parseSearchResults());
+        }
+    }
+
+    @Benchmark
+    public void streamingParse(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < pageCount; i++) {
+            blackhole.consume(JsonParser.readSearchPage(new ByteArrayInputStream(pages[i % pages.length]), extraPaths));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.oracleinternship;
+
+import com.oracleinternship.benchmarks.SyntheticIssues;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing {@code issues} tickets to a new file with the default columns: through an in-memory XSSF
+ * workbook, through the streaming SXSSF workbook, and as CSV for a floor without POI. One operation is
+ * the whole file, written to a temp directory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+public class WriteBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int issues;
+
+    @Param({"xssf", "sxssf", "csv"})
+    public String writer;
+
+    private List<Ticket> tickets;
+    private ColumnPlan plan;
+    private Path directory;
+
+    @Setup
+    public void generate() throws IOException {
+        plan = ColumnPlan.defaultPlan();
+        tickets = tickets(plan, issues);
+        directory = Files.createTempDirectory("write-benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public Path write() throws IOException {
+        Path file;
+        if (writer.equals("csv")) {
+            file = directory.resolve("tickets.csv");
+            FlatFileWriter.writeTickets(tickets, file, FlatFileWriter.Format.CSV, plan, ExportListener.NONE);
+        } else {
+            file = directory.resolve("tickets.xlsx");
+            ExcelWriter.writeTickets(tickets, file.toString(), "https://jira.example.com", "benchmark", false,
+                    writer.equals("sxssf"), plan, ExportListener.NONE);
+        }
+        return file;
+    }
+
+    // Tickets decoded from synthetic pages, cycling through the distinct ones for large counts
+    static List<Ticket> tickets(ColumnPlan plan, int count) throws IOException {
+        SyntheticIssues generator = SyntheticIssues.load(plan.searchFields(), "https://jira.example.com");
+        List<byte[]> pages = generator.searchPages(Math.min(count, ParseBenchmark.PAGE_SIZE * ParseBenchmark.DISTINCT_PAGES),
+                ParseBenchmark.PAGE_SIZE);
+        List<Ticket> tickets = new ArrayList<>(count);
+        for (int i = 0; tickets.size() < count; i++) {
+            for (Ticket ticket : JsonParser.readSearchPage(new ByteArrayInputStream(pages.get(i % pages.size())), plan.extraFieldPaths()).tickets()) {
+                if (tickets.size() < count) {
+                    tickets.add(ticket);
+                }
+            }
+        }
+        return tickets;
+    }
+}
@@ -0,0 +1,184 @@
+package com.oracleinternship.benchmarks;
+
+import com.oracleinternship.ColumnPlan;
+import com.oracleinternship.ExcelWriter;
+import com.oracleinternship.ExportListener;
+import com.oracleinternship.FlatFileWriter;
+import com.oracleinternship.JiraApiClient;
+import com.oracleinternship.Ticket;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs whole exports against a {@link MockJiraServer}: the real {@link JiraApiClient} searches (which
+ * decodes each page with {@code JsonParser}) and the result is written with {@link ExcelWriter}, or as CSV,
+ * for each issue count in turn. Prints the search and write times, throughput, peak heap and what
+ * went over the wire.
+ *
+ * <p>Run with {@code mvn exec:exec@load-test} (uses -Xmx4g), passing options in {@code -Dloadtest.args}:
+ * <pre>
+ * --issues 1000,10000,100000,1000000   issue counts to run, one export each
+ * --latency 50          server latency per request in ms
+ * --page-size 1000      largest page the server hands out
+ * --throttle 0.02       share of requests answered with 429
+ * --retry-after 1       Retry-After seconds on those, -1 for none
+ * --no-gzip             send uncompressed responses
+ * --concurrency 4       requests the client keeps in flight
+ * --writer sxssf        sxssf, xssf or csv
+ * </pre>
+ *
+ * <p>The server runs in the same JVM. It generates pages as it sends them, so it adds little to the
+ * heap, but its CPU time is part of the wall time.
+ */
+public class LoadTestRunner {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 12, 31);
+    // Heap is sampled at this interval to find the peak
+    private static final long SAMPLE_MILLIS = 20;
+
+    private final List<Integer> issueCounts = new ArrayList<>(List.of(1_000, 10_000, 100_000));
+    private Duration latency = Duration.ofMillis(50);
+    private int pageSize = 1000;
+    private double throttleRate = 0;
+    private int retryAfterSeconds = 1;
+    private boolean gzip = true;
+    private int concurrency = 4;
+    private String writer = "sxssf";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestRunner runner = new LoadTestRunner();
+        runner.parse(args);
+        runner.run();
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--issues" -> {
+                    issueCounts.clear();
+                    for (String count : args[++i].split(",")) {
+                        issueCounts.add(Integer.parseInt(count.trim().replace("_", "")));
+                    }
+                }
+                case "--latency" -> latency = Duration.ofMillis(Long.parseLong(args[++i]));
+                case "--page-size" -> pageSize = Integer.parseInt(args[++i]);
+                case "--throttle" -> throttleRate = Double.parseDouble(args[++i]);
+                case "--retry-after" -> retryAfterSeconds = Integer.parseInt(args[++i]);
+                case "--no-gzip" -> gzip = false;
+                case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                case "--writer" -> {
+                    writer = args[++i].toLowerCase();
+                    if (!List.of("sxssf", "xssf", "csv").contains(writer)) {
+                        throw new IllegalArgumentException("Unknown writer: " + writer);
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        System.out.printf("Latency %d ms, pages of up to %d, %.1f%% throttled, gzip %s, %d requests at a time, %s writer%n%n",
+                latency.toMillis(), pageSize, throttleRate * 100, gzip ? "on" : "off", concurrency, writer);
+        System.out.printf("%10s %9s %9s %9s %12s %10s %9s %8s %6s%n",
+                "Issues", "Search s", "Write s", "Total s", "Issues/s", "Peak MB", "Wire MB", "Requests", "429s");
+
+        Path directory = Files.createTempDirectory("load-test");
+        try {
+            for (int count : issueCounts) {
+                Result result = runOnce(count, directory);
+                System.out.printf("%,10d %9.2f %9.2f %9.2f %,12.0f %,10d %,9.1f %8d %6d%n",
+                        count, seconds(result.searchNanos), seconds(result.writeNanos), seconds(result.searchNanos + result.writeNanos),
+                        count / seconds(result.searchNanos + result.writeNanos), result.peakHeap >> 20,
+                        result.bytesSent / 1048576.0, result.requests, result.throttled);
+            }
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private record Result(long searchNanos, long writeNanos, long peakHeap, long bytesSent, long requests, long throttled) {
+    }
+
+    private Result runOnce(int count, Path directory) throws Exception {
+        ColumnPlan plan = ColumnPlan.defaultPlan();
+        try (MockJiraServer server = new MockJiraServer(count, plan.searchFields())) {
+            server.setLatency(latency);
+            server.setMaxPageSize(pageSize);
+            server.setThrottling(throttleRate, retryAfterSeconds);
+            server.setGzip(gzip);
+            server.start();
+
+            System.gc();
+            HeapSampler sampler = new HeapSampler();
+            sampler.start();
+            try {
+                JiraApiClient client = new JiraApiClient(server.baseUrl(), "load-test", concurrency);
+                client.setColumnPlan(plan);
+                List<Ticket> tickets = new ArrayList<>(count);
+                long start = System.nanoTime();
+                client.searchTickets(FROM, TO, null, null, null, tickets::add, ExportListener.NONE);
+                long searched = System.nanoTime();
+                if (tickets.size() != count) {
+                    throw new IllegalStateException("Expected " + count + " tickets but the search returned " + tickets.size());
+                }
+
+                if (writer.equals("csv")) {
+                    FlatFileWriter.writeTickets(tickets, directory.resolve("load-test.csv"), FlatFileWriter.Format.CSV, plan, ExportListener.NONE);
+                } else {
+                    ExcelWriter.writeTickets(tickets, directory.resolve("load-test.xlsx").toString(), server.baseUrl(),
+                            FROM + " to " + TO, false, writer.equals("sxssf"), plan, ExportListener.NONE);
+                }
+                long written = System.nanoTime();
+                return new Result(searched - start, written - searched, sampler.stop(), server.bytesSent(), server.requests(), server.throttledRequests());
+            } finally {
+                sampler.stop();
+            }
+        }
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    /** Samples used heap on a daemon thread until stopped, keeping the highest value seen. */
+    private static final class HeapSampler {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicLong peak = new AtomicLong();
+        private volatile boolean running = true;
+        private Thread thread;
+
+        void start() {
+            thread = Thread.ofPlatform().daemon().name("heap-sampler").start(() -> {
+                while (running) {
+                    peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                    try {
+                        Thread.sleep(SAMPLE_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+
+        long stop() throws InterruptedException {
+            running = false;
+            thread.interrupt();
+            thread.join();
+            return peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        }
+    }
+}
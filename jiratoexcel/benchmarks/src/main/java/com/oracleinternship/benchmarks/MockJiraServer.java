@@ -0,0 +1,288 @@
+package com.oracleinternship.benchmarks;
+
+import com.oracleinternship.ColumnPlan;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A local stand-in for Jira's {@code /rest/api/2/search} and {@code /rest/api/2/issue/{key}} endpoints,
+ * serving {@link SyntheticIssues} on the JDK's HttpServer so exports can be measured without touching a
+ * real instance. Every date range search matches all {@code issues} issues; {@code key in (...)} searches
+ * return the listed keys that exist. Only the fields a search asks for are returned.
+ *
+ * <p>Pages are generated while they are sent, so the server holds no more than a write buffer per
+ * request. Each request waits for the configured latency on its own virtual thread, and may be answered
+ * with 429 instead. Configure before {@link #start()}.
+ *
+ * <p>{@code mvn exec:exec@mock-jira} runs one on its own; see {@link #main}.
+ */
+public final class MockJiraServer implements AutoCloseable {
+
+    private static final Pattern ISSUE_PATH = Pattern.compile("/rest/api/2/issue/([^/]+)");
+    private static final Pattern KEY_LIST = Pattern.compile("^key in \\(([^)]*)\\)");
+    private static final int DEFAULT_MAX_PAGE_SIZE = 1000;
+
+    private final int issues;
+    private final String sampleFields;
+    // One generator per field list the client asks for
+    private final Map<String, SyntheticIssues> generators = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    private Duration latency = Duration.ZERO;
+    private int maxPageSize = DEFAULT_MAX_PAGE_SIZE;
+    private double throttleRate;
+    private int retryAfterSeconds = 1;
+    private boolean gzip = true;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param issues       number of issues every date range search matches
+     * @param sampleFields fields used for the issue endpoint, which has no field list
+     */
+    public MockJiraServer(int issues, String sampleFields) {
+        this.issues = issues;
+        this.sampleFields = sampleFields;
+        // Fails here rather than as dropped connections when the sample can't be found
+        SyntheticIssues.sampleFile();
+    }
+
+    /** Time each request waits before it is answered, standing in for Jira's own search time and the network. */
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /** Largest page served, whatever maxResults asks for; Jira Cloud caps searches at 100. */
+    public void setMaxPageSize(int maxPageSize) {
+        if (maxPageSize < 1) {
+            throw new IllegalArgumentException("maxPageSize must be at least 1");
+        }
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Answers this fraction of requests with 429 Too Many Requests.
+     *
+     * @param retryAfterSeconds Retry-After sent with each 429, or -1 to send none and leave the wait to the client's backoff
+     */
+    public void setThrottling(double rate, int retryAfterSeconds) {
+        this.throttleRate = rate;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /** Gzips responses for clients that accept it; on by default, like Jira. */
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    public MockJiraServer start() throws IOException {
+        return start(0);
+    }
+
+    /** Listens on loopback {@code port}, 0 for any free one. */
+    public MockJiraServer start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/rest/api/2/search", this::search);
+        server.createContext("/rest/api/2/issue/", this::issue);
+        server.start();
+        return this;
+    }
+
+    /** The base URL to hand to JiraApiClient. */
+    public String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    public long throttledRequests() {
+        return throttled.get();
+    }
+
+    /** Response bytes sent, after compression. */
+    public long bytesSent() {
+        return bytesSent.get();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.close();
+            server = null;
+        }
+    }
+
+    private void search(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!admit(exchange)) {
+                return;
+            }
+            Map<String, String> query = query(exchange);
+            String fields = query.getOrDefault("fields", sampleFields);
+            SyntheticIssues generator = generators.computeIfAbsent(fields, f -> SyntheticIssues.load(f, baseUrl()));
+
+            Matcher keyList = KEY_LIST.matcher(query.getOrDefault("jql", ""));
+            if (keyList.find()) {
+                int[] found = Arrays.stream(keyList.group(1).split(","))
+                        .mapToInt(key -> generator.indexOf(key.trim()))
+                        .filter(n -> n >= 0 && n < issues)
+                        .toArray();
+                try (OutputStream out = respond(exchange, 200)) {
+                    generator.writeSearchPage(out, found);
+                }
+                return;
+            }
+
+            int startAt = Math.max(0, intParameter(query, "startAt", 0));
+            int maxResults = Math.min(maxPageSize, Math.max(1, intParameter(query, "maxResults", 50)));
+            try (OutputStream out = respond(exchange, 200)) {
+                generator.writeSearchPage(out, startAt, maxResults, issues);
+            }
+        }
+    }
+
+    private void issue(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!admit(exchange)) {
+                return;
+            }
+            Matcher path = ISSUE_PATH.matcher(exchange.getRequestURI().getPath());
+            SyntheticIssues generator = generators.computeIfAbsent(sampleFields, f -> SyntheticIssues.load(f, baseUrl()));
+            int n = path.matches() ? generator.indexOf(path.group(1)) : -1;
+            if (n < 0 || n >= issues) {
+                try (OutputStream out = respond(exchange, 404)) {
+                    out.write("{\"errorMessages\":[\"Issue Does Not Exist\"],\"errors\":{}}".getBytes(StandardCharsets.UTF_8));
+                }
+                return;
+            }
+            try (OutputStream out = respond(exchange, 200)) {
+                out.write(generator.issue(n));
+            }
+        }
+    }
+
+    // Counts the request, waits out the latency and answers 429 for the throttled share; false if it was throttled
+    private boolean admit(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if (!latency.isZero()) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            }
+        }
+        if (throttleRate > 0 && ThreadLocalRandom.current().nextDouble() < throttleRate) {
+            throttled.incrementAndGet();
+            if (retryAfterSeconds >= 0) {
+                exchange.getResponseHeaders().set("Retry-After", Integer.toString(retryAfterSeconds));
+            }
+            try (OutputStream out = respond(exchange, 429)) {
+                out.write("{\"errorMessages\":[\"Rate limit exceeded.\"]}".getBytes(StandardCharsets.UTF_8));
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // Sends the headers of a chunked JSON response and returns its (possibly gzipped) body stream
+    private OutputStream respond(HttpExchange exchange, int status) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        boolean compress = gzip && acceptEncoding != null && acceptEncoding.contains("gzip");
+        if (compress) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, 0);
+        OutputStream counted = new CountingOutputStream(exchange.getResponseBody(), bytesSent);
+        return compress ? new GZIPOutputStream(counted, 1 << 16) : new BufferedOutputStream(counted, 1 << 16);
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return parameters;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+        try {
+            return Integer.parseInt(query.getOrDefault(name, Integer.toString(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private final AtomicLong count;
+
+        CountingOutputStream(OutputStream out, AtomicLong count) {
+            super(out);
+            this.count = count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count.addAndGet(len);
+        }
+    }
+
+    /**
+     * Runs a server until killed: {@code [issues] [port] [latency ms] [max page size] [429 rate] [gzip]},
+     * by default 100000 issues on port 8089 with no latency, pages of 1000, no throttling and gzip.
+     */
+    public static void main(String[] args) throws IOException {
+        int issues = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8089;
+        MockJiraServer server = new MockJiraServer(issues, ColumnPlan.defaultPlan().searchFields());
+        server.setLatency(Duration.ofMillis(args.length > 2 ? Long.parseLong(args[2]) : 0));
+        server.setMaxPageSize(args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_MAX_PAGE_SIZE);
+        server.setThrottling(args.length > 4 ? Double.parseDouble(args[4]) : 0, 1);
+        server.setGzip(args.length <= 5 || Boolean.parseBoolean(args[5]));
+        server.start(port);
+        System.out.println("Serving " + issues + " issues at " + server.baseUrl());
+    }
+}
@@ -0,0 +1,256 @@
+package com.oracleinternship.benchmarks;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Jira issues and search responses shaped like {@code cleaned_issue.json}: the sample's own field objects
+ * (status, assignee, issue type... with their self links, icons and categories), with the key, summary,
+ * names, dates and issue links varied per issue. Issue {@code n} always looks the same, so pages can be
+ * generated on demand.
+ *
+ * <p>The sample is read from {@code -Djiratoexcel.sampleIssue=<file>}, else from {@code cleaned_issue.json} in
+ * the working directory or one of its parents.
+ */
+public final class SyntheticIssues {
+
+    private static final String[] STATUSES = {"Open", "In Progress", "Waiting for Customer", "Resolved", "Closed", "Reopened", "On Hold", "Triage"};
+    private static final String[] TYPES = {"Issue Investigation", "Bug", "Task", "Story"};
+    private static final String[] PRIORITIES = {"Critical", "High", "Medium", "Low", "Trivial"};
+    private static final String[] LINK_TYPES = {"Defect", "Relates", "Cloners", "Blocks", "Issue split"};
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String project;
+    private final String baseUrl;
+    // The sample's fields, restricted to the ones a search asks for
+    private final ObjectNode fields;
+
+    private SyntheticIssues(JsonNode sample, String fieldList, String baseUrl) {
+        String key = sample.path("key").asText("DTVIEWER-1");
+        this.project = key.substring(0, key.indexOf('-'));
+        this.baseUrl = baseUrl;
+        JsonNode sampleFields = sample.path("fields");
+        this.fields = MAPPER.createObjectNode();
+        for (String field : fieldList.split(",")) {
+            fields.set(field, sampleFields.path(field).isMissingNode() ? null : sampleFields.get(field));
+        }
+    }
+
+    /**
+     * @param fields  comma separated field list, as in the search {@code fields} parameter
+     * @param baseUrl Jira base URL used in the {@code self} links
+     */
+    public static SyntheticIssues load(String fields, String baseUrl) {
+        try {
+            return new SyntheticIssues(MAPPER.readTree(sampleFile().toFile()), fields, baseUrl);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the sample issue: " + e.getMessage(), e);
+        }
+    }
+
+    public static Path sampleFile() {
+        String configured = System.getProperty("jiratoexcel.sampleIssue");
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        for (Path dir = Paths.get("").toAbsolutePath(); dir != null; dir = dir.getParent()) {
+            Path candidate = dir.resolve("cleaned_issue.json");
+            if (Files.isRegularFile(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("cleaned_issue.json not found; set -Djiratoexcel.sampleIssue=<file>");
+    }
+
+    public String key(int n) {
+        return project + "-" + (n + 1);
+    }
+
+    /** Index of an issue key of this project, or -1. */
+    public int indexOf(String key) {
+        if (!key.startsWith(project + "-")) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(key.substring(project.length() + 1)) - 1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** A search response page of issues {@code startAt} .. {@code startAt + maxResults - 1} out of {@code total}. */
+    public byte[] searchPage(int startAt, int maxResults, int total) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(1024, maxResults * 3000));
+        try {
+            writeSearchPage(bytes, startAt, maxResults, total);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Writes {@link #searchPage} to {@code out} as it is generated. */
+    public void writeSearchPage(OutputStream out, int startAt, int maxResults, int total) throws IOException {
+        int end = Math.min(total, startAt + maxResults);
+        writePage(out, startAt, maxResults, total, IntStream.range(Math.min(startAt, end), end).toArray());
+    }
+
+    /** Writes a search response holding just {@code issues}, as a {@code key in (...)} search returns them. */
+    public void writeSearchPage(OutputStream out, int[] issues) throws IOException {
+        writePage(out, 0, Math.max(issues.length, 1), issues.length, issues);
+    }
+
+    /** Search pages of up to {@code pageSize} issues covering issues 0 .. {@code total - 1}. */
+    public List<byte[]> searchPages(int total, int pageSize) {
+        List<byte[]> pages = new ArrayList<>();
+        for (int startAt = 0; startAt < total; startAt += pageSize) {
+            pages.add(searchPage(startAt, pageSize, total));
+        }
+        return pages;
+    }
+
+    /** The {@code /rest/api/2/issue/{key}} response for issue {@code n}. */
+    public byte[] issue(int n) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (JsonGenerator out = MAPPER.getFactory().createGenerator(bytes, JsonEncoding.UTF8)) {
+            writeIssue(out, n);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** The {@code issuelinks} array of issue {@code n}. */
+    public JsonNode issueLinks(int n) {
+        try {
+            return MAPPER.readTree(issue(n)).path("fields").path("issuelinks");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writePage(OutputStream stream, int startAt, int maxResults, int total, int[] issues) throws IOException {
+        try (JsonGenerator out = MAPPER.getFactory().createGenerator(stream, JsonEncoding.UTF8)) {
+            // The caller closes the stream, which may still need finishing (gzip)
+            out.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            out.writeStartObject();
+            out.writeStringField("expand", "schema,names");
+            out.writeNumberField("startAt", startAt);
+            out.writeNumberField("maxResults", maxResults);
+            out.writeNumberField("total", total);
+            out.writeArrayFieldStart("issues");
+            for (int n : issues) {
+                writeIssue(out, n);
+            }
+            out.writeEndArray();
+            out.writeEndObject();
+        }
+    }
+
+    private void writeIssue(JsonGenerator out, int n) throws IOException {
+        Random random = new Random(n);
+        String key = key(n);
+        String id = Integer.toString(6_000_000 + n);
+        boolean resolved = random.nextInt(3) > 0;
+
+        out.writeStartObject();
+        out.writeStringField("expand", "operations,versionedRepresentations,editmeta,changelog,renderedFields");
+        out.writeStringField("id", id);
+        out.writeStringField("self", baseUrl + "/rest/api/2/issue/" + id);
+        out.writeStringField("key", key);
+        out.writeObjectFieldStart("fields");
+        Iterator<Map.Entry<String, JsonNode>> it = fields.fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> field = it.next();
+            out.writeFieldName(field.getKey());
+            switch (field.getKey()) {
+                case "summary" -> out.writeString("Viewer fails to render document " + n + " after " + (1 + random.nextInt(40)) + " pages");
+                case "status" -> writeNamed(out, field.getValue(), STATUSES[random.nextInt(STATUSES.length)]);
+                case "issuetype" -> writeNamed(out, field.getValue(), TYPES[random.nextInt(TYPES.length)]);
+                case "priority" -> writeNamed(out, field.getValue(), PRIORITIES[random.nextInt(PRIORITIES.length)]);
+                case "assignee" -> writeAssignee(out, field.getValue(), random.nextInt(200));
+                case "created" -> out.writeString(timestamp(random, 8));
+                case "updated" -> out.writeString(timestamp(random, 10));
+                case "resolutiondate" -> {
+                    if (resolved) {
+                        out.writeString(timestamp(random, 11));
+                    } else {
+                        out.writeNull();
+                    }
+                }
+                case "customfield_27101" -> out.writeString("<font color='black'><b>" + random.nextInt(60) + ".0 days</b></font></a>");
+                case "issuelinks" -> writeLinks(out, random);
+                default -> MAPPER.writeTree(out, field.getValue());
+            }
+        }
+        out.writeEndObject();
+        out.writeEndObject();
+    }
+
+    // The sample's object with another name, or a bare {"name": ...} when the sample has none
+    private static void writeNamed(JsonGenerator out, JsonNode template, String name) throws IOException {
+        ObjectNode node = template instanceof ObjectNode object ? object.deepCopy() : MAPPER.createObjectNode();
+        node.put("name", name);
+        MAPPER.writeTree(out, node);
+    }
+
+    private static void writeAssignee(JsonGenerator out, JsonNode template, int user) throws IOException {
+        ObjectNode node = template instanceof ObjectNode object ? object.deepCopy() : MAPPER.createObjectNode();
+        node.put("name", "EN" + (100000 + user));
+        node.put("key", "en" + (100000 + user));
+        node.put("displayName", "Engineer " + user);
+        node.put("emailAddress", "engineer" + user + "@example.com");
+        MAPPER.writeTree(out, node);
+    }
+
+    private void writeLinks(JsonGenerator out, Random random) throws IOException {
+        int count = random.nextInt(4);
+        out.writeStartArray();
+        for (int i = 0; i < count; i++) {
+            String type = LINK_TYPES[random.nextInt(LINK_TYPES.length)];
+            int other = random.nextInt(100_000);
+            out.writeStartObject();
+            out.writeStringField("id", Integer.toString(900_000 + other));
+            out.writeObjectFieldStart("type");
+            out.writeStringField("name", type);
+            out.writeStringField("inward", "is related to");
+            out.writeStringField("outward", "relates to");
+            out.writeEndObject();
+            out.writeObjectFieldStart(random.nextBoolean() ? "outwardIssue" : "inwardIssue");
+            out.writeStringField("id", Integer.toString(6_000_000 + other));
+            out.writeStringField("key", (type.equals("Defect") ? "DEFECT-" : project + "-") + (other + 1));
+            out.writeStringField("self", baseUrl + "/rest/api/2/issue/" + (6_000_000 + other));
+            out.writeObjectFieldStart("fields");
+            out.writeStringField("summary", "Linked issue " + other);
+            out.writeObjectFieldStart("status");
+            out.writeStringField("name", STATUSES[random.nextInt(STATUSES.length)]);
+            out.writeEndObject();
+            out.writeEndObject();
+            out.writeEndObject();
+            out.writeEndObject();
+        }
+        out.writeEndArray();
+    }
+
+    private static String timestamp(Random random, int month) {
+        return String.format("2025-%02d-%02dT%02d:%02d:%02d.%03d-0500", month, 1 + random.nextInt(28),
+                random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1000));
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.oracleinternship.benchmarks;
+
+import com.oracleinternship.Ticket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the heap used per ticket for 1M synthetic issues, with the original all-String layout
+ * ({@link LegacyTicket}) against the compact {@link Ticket}. Values are copied per row the way Jackson
+ * hands them out, so repeated statuses and assignees are separate strings on the way in.
+ *
+ * <p>Run with {@code mvn exec:exec@ticket-footprint} (uses -Xmx4g); pass a count to change the size.
+ */
+public class TicketFootprint {
+
+    private static final String[] STATUSES = {"Open", "In Progress", "Waiting for Customer", "Resolved", "Closed", "Reopened", "On Hold", "Triage"};
+    private static final String[] TYPES = {"Issue Investigation", "Bug", "Task", "Story", "Epic"};
+    private static final String[] PRIORITIES = {"P1 - Critical", "P2 - High", "P3 - Medium", "P4 - Low", "P5 - Trivial"};
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long legacy = measure(count, TicketFootprint::legacyTickets);
+        long compact = measure(count, TicketFootprint::compactTickets);
+
+        System.out.printf("%,d tickets%n", count);
+        System.out.printf("String fields:  %,6d bytes per ticket (%,d MB)%n", legacy / count, legacy >> 20);
+        System.out.printf("Compact Ticket: %,6d bytes per ticket (%,d MB)%n", compact / count, compact >> 20);
+        System.out.printf("Saved %.0f%%%n", 100.0 * (legacy - compact) / legacy);
+    }
+
+    private interface Generator {
+        List<?> generate(int count);
+    }
+
+    private static long measure(int count, Generator generator) {
+        // Warm up the dictionary and class loading so they don't count against the first run
+        generator.generate(1000);
+        long before = usedHeap();
+        List<?> tickets = generator.generate(count);
+        long after = usedHeap();
+        if (tickets.size() != count) {
+            throw new IllegalStateException();
+        }
+        return after - before;
+    }
+
+    private static List<LegacyTicket> legacyTickets(int count) {
+        Random random = new Random(42);
+        List<LegacyTicket> tickets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LegacyTicket ticket = new LegacyTicket();
+            ticket.id = "DTVIEWER-" + i;
+            ticket.summary = summary(i);
+            ticket.status = copy(STATUSES[random.nextInt(STATUSES.length)]);
+            ticket.assignee = copy(assignee(random));
+            ticket.issuetype = copy(TYPES[random.nextInt(TYPES.length)]);
+            ticket.priority = copy(PRIORITIES[random.nextInt(PRIORITIES.length)]);
+            ticket.customfield_10704 = copy(version(random));
+            ticket.customfield_27101 = "";
+            ticket.created = timestamp(random);
+            ticket.updated = timestamp(random);
+            ticket.resolutiondate = timestamp(random);
+            ticket.defectJira = "";
+            ticket.linkedIssues = "";
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+
+    private static List<Ticket> compactTickets(int count) {
+        Random random = new Random(42);
+        List<Ticket> tickets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setId("DTVIEWER-" + i);
+            ticket.setSummary(summary(i));
+            ticket.setStatus(copy(STATUSES[random.nextInt(STATUSES.length)]));
+            ticket.setAssignee(copy(assignee(random)));
+            ticket.setIssuetype(copy(TYPES[random.nextInt(TYPES.length)]));
+            ticket.setPriority(copy(PRIORITIES[random.nextInt(PRIORITIES.length)]));
+            ticket.setCustomfield_10704(copy(version(random)));
+            ticket.setCustomfield_27101("");
+            ticket.setCreated(timestamp(random));
+            ticket.setUpdated(timestamp(random));
+            ticket.setResolutiondate(timestamp(random));
+            ticket.setDefectJira("");
+            ticket.setLinkedIssues("");
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+
+    private static String summary(int i) {
+        return "Viewer crashes when opening model " + i + " with markups";
+    }
+
+    private static String assignee(Random random) {
+        return "Engineer " + random.nextInt(200);
+    }
+
+    private static String version(Random random) {
+        return "Viewer 25." + random.nextInt(50);
+    }
+
+    private static String timestamp(Random random) {
+        return String.format("2025-%02d-%02dT%02d:%02d:%02d.000+0000", 1 + random.nextInt(12), 1 + random.nextInt(28),
+                random.nextInt(24), random.nextInt(60), random.nextInt(60));
+    }
+
+    private static String copy(String value) {
+        return new String(value.toCharArray());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /** The Ticket layout before dictionary encoding: a String per field and a per-instance field list. */
+    static final class LegacyTicket {
+        String id, assignee, status, summary, customfield_27101, issuetype, defectJira, resolutiondate, customfield_10704, priority, created, updated, linkedIssues;
+        String[] fields = {"id", "summary", "viewer_version", "waiting_time", "assignee", "current_status", "issue_type", "defect_jira", "ticket_priority", "date_created", "date_resolved"};
+    }
+}
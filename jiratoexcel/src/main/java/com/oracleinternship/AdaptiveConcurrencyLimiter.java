@@ -0,0 +1,113 @@
+package com.oracleinternship;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the requests in flight against Jira and adapts that limit AIMD style: every successful
+ * request raises it by {@code 1/limit} (about one per round of requests), every throttled or failed
+ * one halves it. A {@code Retry-After} from the server pauses all new requests until it has passed.
+ */
+class AdaptiveConcurrencyLimiter {
+
+    // Failures from one burst of parallel requests should only halve the limit once
+    private static final long DECREASE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private long pausedUntilNanos;
+    private long lastDecreaseNanos;
+
+    AdaptiveConcurrencyLimiter(int maxLimit) {
+        this.maxLimit = maxLimit;
+        this.limit = maxLimit;
+        long now = System.nanoTime();
+        this.pausedUntilNanos = now;
+        this.lastDecreaseNanos = now - DECREASE_INTERVAL_NANOS;
+    }
+
+    /**
+     * Blocks until a request may be sent. Every call must be matched by one of the {@code on...} methods.
+     */
+    void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                long pause = pausedUntilNanos - System.nanoTime();
+                if (pause > 0) {
+                    changed.awaitNanos(pause);
+                } else if (inFlight < (int) limit) {
+                    inFlight++;
+                    return;
+                } else {
+                    changed.await();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The request got a usable answer. */
+    void onSuccess() {
+        lock.lock();
+        try {
+            inFlight--;
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The server was overloaded (429, 5xx or a dropped connection).
+     *
+     * @param retryAfter how long the server asked us to stay away, or null
+     */
+    void onDropped(Duration retryAfter) {
+        lock.lock();
+        try {
+            inFlight--;
+            long now = System.nanoTime();
+            if (now - lastDecreaseNanos >= DECREASE_INTERVAL_NANOS) {
+                limit = Math.max(1, limit / 2);
+                lastDecreaseNanos = now;
+            }
+            if (retryAfter != null) {
+                long until = now + retryAfter.toNanos();
+                if (until - pausedUntilNanos > 0) {
+                    pausedUntilNanos = until;
+                }
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The request ended in a way that says nothing about server load (cancelled, 4xx, bad JSON). */
+    void onIgnored() {
+        lock.lock();
+        try {
+            inFlight--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int currentLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.oracleinternship;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs many date range exports from a job file in one go. All jobs share one {@link JiraApiClient}, so
+ * its request limit caps the requests in flight across the whole run. Each job fetches on its own
+ * virtual thread and hands its tickets to a small pool of writer threads, so POI work for one job
+ * overlaps with network I/O for the others.
+ *
+ * <p>Job file format:
+ * <pre>
+ * {
+ *   "url": "https://jira.example.com/",
+ *   "tokenEnv": "JIRA_PAT",
+ *   "maxConcurrentRequests": 8,
+ *   "writerThreads": 2,
+ *   "out": "exports",
+ *   "jobs": [
+ *     { "from": "2025-11-01", "to": "2025-11-30", "project": "DTVIEWER", "assignee": "CS1775239",
+ *       "issueTypes": ["Issue Investigation"], "update": false, "incremental": false }
+ *   ]
+ * }
+ * </pre>
+ * {@code out}, {@code update}, {@code incremental} and {@code issueTypes} may be given at the top level as
+ * defaults for every job. A job may have a {@code "name"}, which also names its workbook; otherwise the
+ * workbook is named after the date range, project and assignee, plus the issue types when they aren't the
+ * default. Jobs may only share a workbook when they all update it.
+ */
+public class BatchRunner {
+
+    public record JobFile(String url, String tokenEnv, int maxConcurrentRequests, int writerThreads, List<JobSpec> jobs) {
+    }
+
+    /**
+     * @param fileName workbook name without extension
+     */
+    public record JobSpec(String name, String fileName, LocalDate startDate, LocalDate endDate, String project, String assignee,
+                          List<String> issueTypes, Path exportDirectory, boolean updateExisting, boolean incrementalSync) {
+    }
+
+    /**
+     * @param status OK, EMPTY (nothing matched) or FAILED
+     */
+    public record JobResult(JobSpec job, String status, int tickets, long fetchMillis, long writeWaitMillis,
+                            long writeMillis, Path file, String error) {
+    }
+
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+    private static final int DEFAULT_WRITER_THREADS = 2;
+    private static final List<String> DEFAULT_ISSUE_TYPES = List.of("Issue Investigation");
+
+    private final JiraApiClient jiraClient;
+    private final String jiraUrl;
+    private final int writerThreads;
+    // Jobs over overlapping scopes link to the same defects, so their lookups are shared
+    private final LinkedIssueEnricher enricher;
+    // Jobs writing the same workbook (update mode) must not interleave
+    private final ConcurrentHashMap<Path, ReentrantLock> fileLocks = new ConcurrentHashMap<>();
+
+    public BatchRunner(JiraApiClient jiraClient, String jiraUrl, int writerThreads) {
+        this.jiraClient = jiraClient;
+        this.jiraUrl = jiraUrl;
+        this.writerThreads = writerThreads;
+        this.enricher = new LinkedIssueEnricher(jiraClient);
+    }
+
+    public static JobFile loadJobFile(Path path) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(path.toFile());
+        String url = requiredText(root, "url");
+        String tokenEnv = root.path("tokenEnv").asText("JIRA_PAT");
+        int maxConcurrentRequests = root.path("maxConcurrentRequests").asInt(DEFAULT_MAX_CONCURRENT_REQUESTS);
+        int writerThreads = root.path("writerThreads").asInt(DEFAULT_WRITER_THREADS);
+
+        JsonNode jobsNode = root.path("jobs");
+        if (!jobsNode.isArray() || jobsNode.isEmpty()) {
+            throw new IllegalArgumentException("Job file has no \"jobs\" array: " + path);
+        }
+
+        List<JobSpec> jobs = new ArrayList<>();
+        Map<Path, JobSpec> jobsByFile = new HashMap<>();
+        for (JsonNode job : jobsNode) {
+            LocalDate startDate = requiredDate(job, "from");
+            LocalDate endDate = requiredDate(job, "to");
+            String project = optionalText(job, "project");
+            String assignee = optionalText(job, "assignee");
+            List<String> issueTypes = textList(job.has("issueTypes") ? job.get("issueTypes") : root.path("issueTypes"));
+            if (issueTypes.isEmpty()) {
+                issueTypes = DEFAULT_ISSUE_TYPES;
+            }
+            Path out = Paths.get(job.path("out").asText(root.path("out").asText("test")));
+            boolean update = job.path("update").asBoolean(root.path("update").asBoolean(false));
+            boolean incremental = job.path("incremental").asBoolean(root.path("incremental").asBoolean(false));
+            String name = optionalText(job, "name");
+            String fileName;
+            if (name != null) {
+                fileName = name.replaceAll("[^A-Za-z0-9._-]+", "_");
+            } else {
+                fileName = TicketExporter.dateRangeFileName(startDate, endDate, assignee, project);
+                if (!issueTypes.equals(DEFAULT_ISSUE_TYPES)) {
+                    fileName += "_types_" + String.join("_", issueTypes).replaceAll("[^A-Za-z0-9._-]+", "_");
+                }
+                name = fileName;
+            }
+            JobSpec spec = new JobSpec(name, fileName, startDate, endDate, project, assignee, issueTypes, out, update, incremental);
+
+            // Jobs that update a workbook take turns on it, but one that replaces it would throw the others' work away
+            JobSpec other = jobsByFile.putIfAbsent(out.resolve(fileName + ".xlsx").toAbsolutePath().normalize(), spec);
+            if (other != null && !(update && other.updateExisting())) {
+                throw new IllegalArgumentException("Jobs '" + other.name() + "' and '" + name + "' would both write "
+                        + fileName + ".xlsx; give them different names or set \"update\" on both");
+            }
+            jobs.add(spec);
+        }
+
+        return new JobFile(url, tokenEnv, Math.max(1, maxConcurrentRequests), Math.max(1, writerThreads), jobs);
+    }
+
+    /**
+     * Runs every job and returns one result per job, in job file order. A failing job doesn't stop the others.
+     */
+    public List<JobResult> run(List<JobSpec> jobs) throws InterruptedException {
+        ExecutorService writerPool = Executors.newFixedThreadPool(writerThreads, writerThreadFactory());
+        try (ExecutorService fetchPool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<JobResult>> futures = new ArrayList<>();
+            for (JobSpec job : jobs) {
+                futures.add(fetchPool.submit(() -> runJob(job, writerPool)));
+            }
+
+            List<JobResult> results = new ArrayList<>();
+            try {
+                for (Future<JobResult> future : futures) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw e;
+            } catch (ExecutionException e) {
+                // runJob reports its own failures, so this is a bug rather than a failed export
+                throw new IllegalStateException(e.getCause());
+            }
+            return results;
+        } finally {
+            writerPool.shutdownNow();
+        }
+    }
+
+    private JobResult runJob(JobSpec job, ExecutorService writerPool) throws InterruptedException {
+        TicketExporter exporter = new TicketExporter(jiraClient, jiraUrl, new ConsoleListener("[" + job.name() + "] "), enricher);
+        long fetchMillis = 0;
+        long[] writeTimes = {0, 0}; // wait for a writer thread, time spent writing
+
+        try {
+            long fetchStart = System.nanoTime();
+            List<Ticket> tickets = exporter.fetchDateRange(job.startDate(), job.endDate(), job.assignee(), job.project(),
+                    job.issueTypes(), job.incrementalSync());
+            fetchMillis = (System.nanoTime() - fetchStart) / 1_000_000;
+            if (tickets.isEmpty()) {
+                return new JobResult(job, "EMPTY", 0, fetchMillis, 0, 0, null, null);
+            }
+
+            long queuedAt = System.nanoTime();
+            Future<Path> write = writerPool.submit(() -> {
+                long writeStart = System.nanoTime();
+                writeTimes[0] = (writeStart - queuedAt) / 1_000_000;
+                Path target = job.exportDirectory().resolve(job.fileName() + ".xlsx");
+                ReentrantLock lock = fileLocks.computeIfAbsent(target.toAbsolutePath().normalize(), key -> new ReentrantLock());
+                lock.lock();
+                try {
+                    return exporter.writeDateRange(tickets, job.startDate(), job.endDate(), job.assignee(), job.project(),
+                            job.exportDirectory(), job.fileName(), job.updateExisting(), "Excel");
+                } finally {
+                    lock.unlock();
+                    writeTimes[1] = (System.nanoTime() - writeStart) / 1_000_000;
+                }
+            });
+            Path file;
+            try {
+                file = write.get();
+            } catch (InterruptedException e) {
+                write.cancel(true);
+                throw e;
+            }
+            return new JobResult(job, "OK", tickets.size(), fetchMillis, writeTimes[0], writeTimes[1], file, null);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            String message = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+            return new JobResult(job, "FAILED", 0, fetchMillis, writeTimes[0], writeTimes[1], null, message);
+        }
+    }
+
+    /**
+     * Prints a per-job timing table followed by run totals.
+     */
+    public static void printSummary(List<JobResult> results, long wallMillis, PrintStream out) {
+        out.println();
+        out.println(String.format("%-60s %-7s %8s %10s %10s %10s", "Job", "Status", "Tickets", "Fetch ms", "Queue ms", "Write ms"));
+        int totalTickets = 0;
+        int failed = 0;
+        for (JobResult result : results) {
+            out.println(String.format("%-60s %-7s %8d %10d %10d %10d", truncate(result.job().name(), 60), result.status(),
+                    result.tickets(), result.fetchMillis(), result.writeWaitMillis(), result.writeMillis()));
+            if (result.error() != null) {
+                out.println("    " + result.error());
+            }
+            totalTickets += result.tickets();
+            if ("FAILED".equals(result.status())) {
+                failed++;
+            }
+        }
+        out.println(String.format("%d jobs (%d failed), %d tickets in %.1f s", results.size(), failed, totalTickets, wallMillis / 1000.0));
+    }
+
+    private static String truncate(String value, int length) {
+        return value.length() <= length ? value : value.substring(0, length - 3) + "...";
+    }
+
+    private static ThreadFactory writerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "excel-writer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static String requiredText(JsonNode node, String field) {
+        String value = optionalText(node, field);
+        if (value == null) {
+            throw new IllegalArgumentException("Job file is missing \"" + field + "\"");
+        }
+        return value;
+    }
+
+    private static String optionalText(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() && !value.asText().isBlank() ? value.asText() : null;
+    }
+
+    private static LocalDate requiredDate(JsonNode job, String field) {
+        String value = requiredText(job, field);
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date for \"" + field + "\": " + value);
+        }
+    }
+
+    private static List<String> textList(JsonNode node) {
+        List<String> items = new ArrayList<>();
+        for (JsonNode item : node) {
+            items.add(item.asText());
+        }
+        return items;
+    }
+}
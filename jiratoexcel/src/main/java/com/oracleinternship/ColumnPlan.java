@@ -0,0 +1,328 @@
+package com.oracleinternship;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The export columns, compiled once from a column spec ({@code columns.json}) into one extractor per column.
+ * The same plan tells {@link JiraApiClient} which Jira fields to request, so a column is added by editing
+ * the spec, and nothing is fetched that no column shows.
+ *
+ * <p>Each spec entry has a {@code header} and optionally:
+ * <ul>
+ * <li>{@code field}: a built-in ticket field ({@code key}, {@code summary}, {@code status}, {@code assignee},
+ * {@code issuetype}, {@code priority}, {@code created}, {@code resolutiondate}, {@code updated},
+ * {@code customfield_27101}, {@code customfield_10704}, {@code defect}, {@code defect.status},
+ * {@code defect.priority}, {@code defect.resolution}, {@code defect.fixVersions}, {@code linkedIssues},
+ * {@code linkedIssues.status}), or any other Jira field path such as {@code reporter.displayName} or
+ * {@code customfield_12345}. Without a field the column is left blank for manual input.</li>
+ * <li>{@code transform}: {@code text} (default), {@code link} (hyperlink to the issue), {@code date}
+ * (Excel date) or {@code htmlText} (text of the first HTML element).</li>
+ * <li>{@code ifContains} / {@code unlessContains}: only show the value when it does / doesn't contain this text.</li>
+ * <li>{@code maxWidth}: column width cap in characters.</li>
+ * </ul>
+ *
+ * <p>{@link #defaultPlan()} uses {@code ~/.jiratoexcel/columns.json} when it exists and the bundled spec otherwise.
+ */
+public final class ColumnPlan {
+
+    enum Kind { BLANK, TEXT, LINK, DATE }
+
+    /** One compiled column: where its value comes from and how it is written. */
+    static final class Column {
+        final String header;
+        final String field;
+        final Kind kind;
+        final int maxWidth;
+        final Function<Ticket, String> text;
+        final ToDoubleFunction<Ticket> date;
+
+        private Column(String header, String field, Kind kind, int maxWidth, Function<Ticket, String> text, ToDoubleFunction<Ticket> date) {
+            this.header = header;
+            this.field = field;
+            this.kind = kind;
+            this.maxWidth = maxWidth;
+            this.text = text;
+            this.date = date;
+        }
+    }
+
+    // Fields the parser maps onto Ticket itself; other fields are read generically as extra fields
+    private static final Set<String> BUILT_IN_JIRA_FIELDS = Set.of("summary", "status", "assignee", "issuetype",
+            "resolutiondate", "created", "updated", "priority", "customfield_27101", "customfield_10704", "issuelinks",
+            "resolution", "fixVersions");
+    // TicketStore needs these to place tickets in a date window and sync incrementally
+    private static final List<String> ALWAYS_FETCHED = List.of("created", "resolutiondate", "updated");
+    private static final Pattern HTML_TEXT = Pattern.compile("<[^>]*>([^<]+)<[^>]*>");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static volatile ColumnPlan defaultPlan;
+
+    private final List<Column> columns;
+    private final String searchFields;
+    private final List<String> extraFieldPaths;
+    private final boolean usesLinkedIssueDetails;
+
+    private ColumnPlan(List<Column> columns, String searchFields, List<String> extraFieldPaths, boolean usesLinkedIssueDetails) {
+        this.columns = columns;
+        this.searchFields = searchFields;
+        this.extraFieldPaths = extraFieldPaths;
+        this.usesLinkedIssueDetails = usesLinkedIssueDetails;
+    }
+
+    public static Path userFile() {
+        return Paths.get(System.getProperty("user.home"), ".jiratoexcel", "columns.json");
+    }
+
+    /**
+     * The user's spec if there is one, else the bundled one. Compiled on first use.
+     */
+    public static ColumnPlan defaultPlan() {
+        ColumnPlan plan = defaultPlan;
+        if (plan == null) {
+            synchronized (ColumnPlan.class) {
+                plan = defaultPlan;
+                if (plan == null) {
+                    try {
+                        Path userFile = userFile();
+                        plan = Files.exists(userFile) ? load(userFile) : loadBundled();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not read the column spec: " + e.getMessage(), e);
+                    }
+                    defaultPlan = plan;
+                }
+            }
+        }
+        return plan;
+    }
+
+    public static ColumnPlan load(Path specFile) throws IOException {
+        try {
+            return compile(MAPPER.readTree(specFile.toFile()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(specFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    static ColumnPlan loadBundled() throws IOException {
+        try (InputStream in = ColumnPlan.class.getResourceAsStream("/columns.json")) {
+            if (in == null) {
+                throw new IOException("columns.json is missing from the classpath");
+            }
+            return compile(MAPPER.readTree(in));
+        }
+    }
+
+    static ColumnPlan compile(JsonNode spec) {
+        JsonNode columnSpecs = spec.path("columns");
+        if (!columnSpecs.isArray() || columnSpecs.isEmpty()) {
+            throw new IllegalArgumentException("the column spec has no \"columns\" array");
+        }
+
+        List<Column> columns = new ArrayList<>();
+        Set<String> jiraFields = new LinkedHashSet<>(ALWAYS_FETCHED);
+        Set<String> extraPaths = new LinkedHashSet<>();
+        boolean linkedIssueDetails = false;
+
+        for (JsonNode columnSpec : columnSpecs) {
+            Column column = compileColumn(columnSpec);
+            columns.add(column);
+
+            String field = textOrNull(columnSpec, "field");
+            if (field == null || field.equals("key")) {
+                continue;
+            }
+            if (isLinkField(field)) {
+                jiraFields.add("issuelinks");
+                linkedIssueDetails |= field.contains(".");
+            } else if (isBuiltIn(field)) {
+                jiraFields.add(field);
+            } else {
+                jiraFields.add(field.substring(0, field.contains(".") ? field.indexOf('.') : field.length()));
+                extraPaths.add(field);
+            }
+        }
+
+        return new ColumnPlan(List.copyOf(columns), String.join(",", jiraFields), List.copyOf(extraPaths), linkedIssueDetails);
+    }
+
+    private static Column compileColumn(JsonNode columnSpec) {
+        String header = textOrNull(columnSpec, "header");
+        if (header == null) {
+            throw new IllegalArgumentException("every column needs a \"header\"");
+        }
+        String field = textOrNull(columnSpec, "field");
+        String transform = columnSpec.path("transform").asText("text");
+        int maxWidth = columnSpec.path("maxWidth").asInt(0);
+
+        if (field == null) {
+            return new Column(header, null, Kind.BLANK, maxWidth, null, null);
+        }
+        if (transform.equals("date")) {
+            return new Column(header, field, Kind.DATE, maxWidth, textSource(header, field), dateSource(header, field));
+        }
+
+        Function<Ticket, String> text = textSource(header, field);
+        String ifContains = textOrNull(columnSpec, "ifContains");
+        if (ifContains != null) {
+            Function<Ticket, String> source = text;
+            text = ticket -> {
+                String value = source.apply(ticket);
+                return value != null && value.contains(ifContains) ? value : "";
+            };
+        }
+        String unlessContains = textOrNull(columnSpec, "unlessContains");
+        if (unlessContains != null) {
+            Function<Ticket, String> source = text;
+            text = ticket -> {
+                String value = source.apply(ticket);
+                return value != null && !value.contains(unlessContains) ? value : "";
+            };
+        }
+
+        return switch (transform) {
+            case "text" -> new Column(header, field, Kind.TEXT, maxWidth, text, null);
+            case "link" -> new Column(header, field, Kind.LINK, maxWidth, text, null);
+            case "htmlText" -> new Column(header, field, Kind.TEXT, maxWidth, text.andThen(ColumnPlan::htmlText), null);
+            default -> throw new IllegalArgumentException("unknown transform '" + transform + "' for column '" + header + "'");
+        };
+    }
+
+    private static Function<Ticket, String> textSource(String header, String field) {
+        return switch (field) {
+            case "key" -> Ticket::getId;
+            case "summary" -> Ticket::getSummary;
+            case "status" -> Ticket::getStatus;
+            case "assignee" -> Ticket::getAssignee;
+            case "issuetype" -> Ticket::getIssuetype;
+            case "priority" -> Ticket::getPriority;
+            case "created" -> Ticket::getCreated;
+            case "resolutiondate" -> Ticket::getResolutiondate;
+            case "updated" -> Ticket::getUpdated;
+            case "customfield_27101" -> Ticket::getCustomfield_27101;
+            case "customfield_10704" -> Ticket::getCustomfield_10704;
+            case "resolution" -> Ticket::getResolution;
+            case "fixVersions" -> Ticket::getFixVersions;
+            case "defect" -> Ticket::getDefectJira;
+            case "defect.status" -> Ticket::getDefectStatus;
+            case "defect.priority" -> Ticket::getDefectPriority;
+            case "defect.resolution" -> Ticket::getDefectResolution;
+            case "defect.fixVersions" -> Ticket::getDefectFixVersions;
+            case "linkedIssues" -> Ticket::getLinkedIssues;
+            case "linkedIssues.status" -> Ticket::getLinkedIssuesStatus;
+            default -> {
+                checkExtraField(header, field);
+                yield ticket -> ticket.getExtraField(field);
+            }
+        };
+    }
+
+    private static ToDoubleFunction<Ticket> dateSource(String header, String field) {
+        return switch (field) {
+            case "created" -> Ticket::getCreatedExcelDate;
+            case "resolutiondate" -> Ticket::getResolutiondateExcelDate;
+            case "updated" -> Ticket::getUpdatedExcelDate;
+            default -> {
+                if (isBuiltIn(field) || isLinkField(field) || field.equals("key")) {
+                    throw new IllegalArgumentException("'" + field + "' is not a date (column '" + header + "')");
+                }
+                checkExtraField(header, field);
+                yield ticket -> {
+                    String value = ticket.getExtraField(field);
+                    long millis = JiraTimestamp.parseMillis(value);
+                    return millis != JiraTimestamp.NONE ? JiraTimestamp.toExcelDate(millis, JiraTimestamp.parseOffsetMinutes(value)) : -1;
+                };
+            }
+        };
+    }
+
+    // The parser consumes built-in fields itself, so a path can't reach into them
+    private static void checkExtraField(String header, String field) {
+        String root = field.contains(".") ? field.substring(0, field.indexOf('.')) : field;
+        if (root.isEmpty() || BUILT_IN_JIRA_FIELDS.contains(root) || root.equals("key")) {
+            throw new IllegalArgumentException("'" + field + "' is not supported (column '" + header
+                    + "'); use the built-in field '" + root + "' instead");
+        }
+    }
+
+    private static boolean isBuiltIn(String field) {
+        return BUILT_IN_JIRA_FIELDS.contains(field) && !field.equals("issuelinks");
+    }
+
+    private static boolean isLinkField(String field) {
+        return field.equals("defect") || field.startsWith("defect.") || field.equals("linkedIssues") || field.startsWith("linkedIssues.");
+    }
+
+    // Text of the first element, e.g. "8.0 days" out of a rendered SLA field
+    private static String htmlText(String html) {
+        if (html == null || html.isEmpty()) {
+            return "";
+        }
+        Matcher matcher = HTML_TEXT.matcher(html);
+        return matcher.find() ? matcher.group(1) : html;
+    }
+
+    private static String textOrNull(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() && !value.asText().isBlank() ? value.asText().trim() : null;
+    }
+
+    List<Column> columns() {
+        return columns;
+    }
+
+    /** This plan with a computed text column in front, e.g. the kind of change on a changes sheet. */
+    ColumnPlan withLeadingColumn(String header, Function<Ticket, String> text) {
+        List<Column> widened = new ArrayList<>();
+        widened.add(new Column(header, null, Kind.TEXT, 0, text, null));
+        widened.addAll(columns);
+        return new ColumnPlan(List.copyOf(widened), searchFields, extraFieldPaths, usesLinkedIssueDetails);
+    }
+
+    public int size() {
+        return columns.size();
+    }
+
+    public String header(int column) {
+        return columns.get(column).header;
+    }
+
+    /** Comma separated Jira field ids for the search {@code fields} parameter. */
+    public String searchFields() {
+        return searchFields;
+    }
+
+    /** Field paths outside the built-in ticket fields that the parser should keep on each ticket. */
+    public List<String> extraFieldPaths() {
+        return extraFieldPaths;
+    }
+
+    /** True when a column shows details of the Defect Jira or linked issues, which need an extra fetch. */
+    public boolean usesLinkedIssueDetails() {
+        return usesLinkedIssueDetails;
+    }
+
+    /** The column's value as text; dates come back in the form Jira sent them. */
+    public String text(int column, Ticket ticket) {
+        Column compiled = columns.get(column);
+        if (compiled.kind == Kind.BLANK) {
+            return "";
+        }
+        String value = compiled.text.apply(ticket);
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,115 @@
+package com.oracleinternship;
+
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * Estimates column widths from the text written into each column, as a cheap replacement for
+ * {@link Sheet#autoSizeColumn(int)}. Rows only need to be seen once, so it also works with a
+ * streaming sheet whose rows have already been flushed.
+ */
+class ColumnWidthEstimator {
+
+    // Excel refuses widths above 255 characters
+    private static final int MAX_WIDTH_CHARS = 255;
+    // autoSizeColumn leaves roughly this much room around the text
+    private static final double PADDING_CHARS = 1.7;
+    // Bold header text renders wider than the default font
+    private static final double BOLD_FACTOR = 1.1;
+
+    private final double[] maxChars;
+    private final int[] capChars;
+    // Time spent measuring and applying, timed per row rather than per cell to keep the clock out of the way
+    private long nanos;
+
+    ColumnWidthEstimator(int columns) {
+        this.maxChars = new double[columns];
+        this.capChars = new int[columns];
+    }
+
+    /**
+     * Limits a wrapped column to {@code chars} characters; longer text wraps instead of widening it.
+     */
+    void cap(int column, int chars) {
+        capChars[column] = chars;
+    }
+
+    void measureHeader(int column, String text) {
+        maxChars[column] = Math.max(maxChars[column], longestLine(text) * BOLD_FACTOR);
+    }
+
+    void measure(int column, String text) {
+        int length = longestLine(text);
+        if (length > maxChars[column]) {
+            maxChars[column] = length;
+        }
+    }
+
+    /** Measures a row's text, one entry per column; null entries (blank cells) are skipped. */
+    void measureRow(String[] texts) {
+        long start = System.nanoTime();
+        for (int i = 0; i < texts.length; i++) {
+            if (texts[i] != null) {
+                measure(i, texts[i]);
+            }
+        }
+        nanos += System.nanoTime() - start;
+    }
+
+    void applyTo(Sheet sheet) {
+        long start = System.nanoTime();
+        for (int i = 0; i < maxChars.length; i++) {
+            sheet.setColumnWidth(i, width(i));
+        }
+        nanos += System.nanoTime() - start;
+    }
+
+    /** Time spent in {@link #measureRow} and {@link #applyTo}. */
+    long nanos() {
+        return nanos;
+    }
+
+    /** Estimated width of a column in 1/256ths of a character, the unit {@link Sheet#setColumnWidth} takes. */
+    int width(int column) {
+        double chars = maxChars[column] + PADDING_CHARS;
+        if (capChars[column] > 0) {
+            chars = Math.min(chars, capChars[column]);
+        }
+        chars = Math.min(chars, MAX_WIDTH_CHARS);
+        return (int) (chars * 256);
+    }
+
+    int columns() {
+        return maxChars.length;
+    }
+
+    // Length of the longest line in characters, counting East Asian wide characters as two
+    private static int longestLine(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int longest = 0;
+        int current = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                longest = Math.max(longest, current);
+                current = 0;
+            } else if (isWide(c)) {
+                current += 2;
+            } else {
+                current++;
+            }
+        }
+        return Math.max(longest, current);
+    }
+
+    // Hangul, CJK ideographs and full-width forms take two character cells
+    private static boolean isWide(char c) {
+        return (c >= '\u1100' && c <= '\u115F')
+                || (c >= '\u2E80' && c <= '\uA4CF')
+                || (c >= '\uAC00' && c <= '\uD7A3')
+                || (c >= '\uF900' && c <= '\uFAFF')
+                || (c >= '\uFF00' && c <= '\uFF60')
+                || (c >= '\uFFE0' && c <= '\uFFE6');
+    }
+}
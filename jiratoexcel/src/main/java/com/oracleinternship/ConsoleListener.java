@@ -0,0 +1,33 @@
+package com.oracleinternship;
+
+/**
+ * Prints status lines to stdout and progress to stderr, so stdout stays readable in cron mail.
+ */
+class ConsoleListener implements ExportListener {
+
+    private final String prefix;
+
+    /**
+     * @param prefix put in front of every line, e.g. a job name when several exports share the console
+     */
+    ConsoleListener(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void onMessage(String message) {
+        System.out.println(prefix + message);
+    }
+
+    @Override
+    public void onPageFetched(int pagesFetched, int totalPages, int ticketsFetched, int totalTickets) {
+        System.err.println(prefix + "Fetched page " + pagesFetched + "/" + totalPages + " (" + ticketsFetched + "/" + totalTickets + " tickets)");
+    }
+
+    @Override
+    public void onRowsWritten(int rowsWritten, int totalRows) {
+        if (rowsWritten == totalRows) {
+            System.err.println(prefix + "Wrote " + rowsWritten + " rows");
+        }
+    }
+}
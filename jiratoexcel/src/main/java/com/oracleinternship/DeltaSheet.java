@@ -0,0 +1,470 @@
+package com.oracleinternship;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What changed between an export and the previous one in the workbook it is added to: new tickets, closed
+ * ones, changed ones (with the changed cells highlighted) and tickets that are no longer in the export.
+ *
+ * <p>The previous export is the last full sheet with the changes sheets after it applied on top, so runs that
+ * only add a changes sheet each report what changed since the run before, not since the last full sheet.
+ * The sheets' XML is streamed once through a SAX handler, the XSSF event model, into an index of issue key
+ * to a hash per column, so neither the workbook nor its earlier rows are held as cells; the export is
+ * compared against it in one pass too. The sheet is found through the workbook part alone, without opening
+ * the package, whose hyperlink relationships run to megabytes per sheet. Columns are matched by header and
+ * dates by their serial number to the minute, as they are shown; dates that older versions wrote as text
+ * ("MM/dd/yyyy hh:mm a") are read back to the same number. Cells are hashed to 64 bits, so two different
+ * values only compare equal by a collision that won't happen over a sheet's worth of cells. The manual
+ * (blank) columns aren't compared, since people fill those in by hand.
+ */
+final class DeltaSheet {
+
+    /** Ends the name of every changes sheet, so the next comparison reads them as changes, not as a full sheet. */
+    static final String SHEET_SUFFIX = " changes";
+
+    // Heads the column in front of a changes sheet's own columns
+    private static final String CHANGE_HEADER = "Change";
+    private static final String SHARED_STRINGS = "xl/sharedStrings.xml";
+    // How dates were written, as text, before they became date cells
+    private static final String LEGACY_DATE_PATTERN = "MM/dd/yyyy hh:mm a";
+    private static final List<DateTimeFormatter> LEGACY_DATES = List.of(
+            new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern(LEGACY_DATE_PATTERN).toFormatter(Locale.ENGLISH),
+            new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern(LEGACY_DATE_PATTERN).toFormatter());
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private enum Change {
+        NEW("New"), CLOSED("Closed"), CHANGED("Changed"), REMOVED("Removed");
+
+        private final String label;
+
+        Change(String label) {
+            this.label = label;
+        }
+    }
+
+    private record Entry(Change change, Ticket ticket, BitSet changedColumns) {
+    }
+
+    // One hash per plan column of a previous row
+    private record PreviousRow(long[] cells) {
+    }
+
+    private final String previousSheet;
+    private final ColumnPlan plan;
+    private final List<Entry> entries;
+
+    private DeltaSheet(String previousSheet, ColumnPlan plan, List<Entry> entries) {
+        this.previousSheet = previousSheet;
+        this.plan = plan;
+        this.entries = entries;
+    }
+
+    /**
+     * Compares {@code tickets} with the last sheet of {@code workbook} that isn't a changes sheet, updated by
+     * the changes sheets that follow it.
+     *
+     * @return the changes, or null if there is no such sheet or it has no column for the issue key
+     */
+    static DeltaSheet compare(File workbook, List<Ticket> tickets, ColumnPlan plan) throws IOException {
+        List<ColumnPlan.Column> columns = plan.columns();
+        int keyColumn = -1;
+        for (int i = 0; i < columns.size() && keyColumn < 0; i++) {
+            if ("key".equals(columns.get(i).field)) {
+                keyColumn = i;
+            }
+        }
+        if (keyColumn < 0) {
+            return null;
+        }
+        SheetIndex previous = SheetIndex.read(workbook, columns, keyColumn);
+        if (previous == null) {
+            return null;
+        }
+
+        // A resolution date or status change on a resolved ticket is what makes it "Closed"
+        BitSet closingColumns = new BitSet();
+        for (int i = 0; i < columns.size(); i++) {
+            String field = columns.get(i).field;
+            if ("resolutiondate".equals(field) || "status".equals(field)) {
+                closingColumns.set(i);
+            }
+        }
+
+        List<Entry> added = new ArrayList<>();
+        List<Entry> closed = new ArrayList<>();
+        List<Entry> changed = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        long[] cells = new long[columns.size()];
+        for (Ticket ticket : tickets) {
+            String key = nullToEmpty(columns.get(keyColumn).text.apply(ticket)).trim();
+            seen.add(key);
+            hashCells(ticket, columns, previous.compared, cells);
+            PreviousRow old = previous.rows.get(key);
+            if (old == null) {
+                added.add(new Entry(Change.NEW, ticket, new BitSet()));
+            } else if (!Arrays.equals(old.cells(), cells)) {
+                BitSet diff = new BitSet();
+                for (int i = previous.compared.nextSetBit(0); i >= 0; i = previous.compared.nextSetBit(i + 1)) {
+                    if (cells[i] != old.cells()[i]) {
+                        diff.set(i);
+                    }
+                }
+                boolean closedNow = ticket.getResolutiondateMillis() != JiraTimestamp.NONE && diff.intersects(closingColumns);
+                (closedNow ? closed : changed).add(new Entry(closedNow ? Change.CLOSED : Change.CHANGED, ticket, diff));
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>(added.size() + closed.size() + changed.size());
+        entries.addAll(added);
+        entries.addAll(closed);
+        entries.addAll(changed);
+        for (String key : previous.rows.keySet()) {
+            if (!seen.contains(key)) {
+                Ticket gone = new Ticket();
+                gone.setId(key);
+                entries.add(new Entry(Change.REMOVED, gone, new BitSet()));
+            }
+        }
+        return new DeltaSheet(previous.name, plan, entries);
+    }
+
+    /** A status line such as "Changes since '...': 2 new, 1 closed, 5 changed, 0 removed." */
+    String summary() {
+        int[] counts = new int[Change.values().length];
+        for (Entry entry : entries) {
+            counts[entry.change().ordinal()]++;
+        }
+        return "Changes since '" + previousSheet + "': " + counts[Change.NEW.ordinal()] + " new, "
+                + counts[Change.CLOSED.ordinal()] + " closed, " + counts[Change.CHANGED.ordinal()] + " changed, "
+                + counts[Change.REMOVED.ordinal()] + " removed.";
+    }
+
+    /** The changes as a sheet: a "Change" column in front of the export's own columns. */
+    ExcelWriter.SheetSpec toSheet(String name) {
+        List<Ticket> tickets = new ArrayList<>(entries.size());
+        Map<Ticket, Change> changes = new IdentityHashMap<>();
+        for (Entry entry : entries) {
+            tickets.add(entry.ticket());
+            changes.put(entry.ticket(), entry.change());
+        }
+        ColumnPlan sheetPlan = plan.withLeadingColumn(CHANGE_HEADER, ticket -> changes.get(ticket).label);
+        return new ExcelWriter.SheetSpec(name, tickets, sheetPlan,
+                (row, column) -> column > 0 && entries.get(row).changedColumns().get(column - 1));
+    }
+
+    // Hashes the compared cells of a ticket into cells; the others stay 0, as in every previous row
+    private static void hashCells(Ticket ticket, List<ColumnPlan.Column> columns, BitSet compared, long[] cells) {
+        for (int i = compared.nextSetBit(0); i >= 0; i = compared.nextSetBit(i + 1)) {
+            ColumnPlan.Column column = columns.get(i);
+            cells[i] = switch (column.kind) {
+                case BLANK -> 0;
+                case TEXT -> textHash(nullToEmpty(column.text.apply(ticket)));
+                case LINK -> textHash(nullToEmpty(column.text.apply(ticket)).trim());
+                case DATE -> {
+                    double excelDate = column.date.applyAsDouble(ticket);
+                    yield excelDate < 0 ? 0 : dateHash(excelDate);
+                }
+            };
+        }
+    }
+
+    // 64-bit FNV-1a over the chars; empty text hashes to 0, like a cell the previous sheet left out
+    static long textHash(String text) {
+        if (text.isEmpty()) {
+            return 0;
+        }
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    // Dates are compared as the serial number the cell holds, to the minute the date format shows,
+    // so a date read back from text matches the one it was written from
+    private static long dateHash(double excelDate) {
+        return Math.round(excelDate * MINUTES_PER_DAY) + 1;
+    }
+
+    // A date cell of the previous sheet that holds text: the legacy layout, or a raw Jira timestamp
+    // where the legacy formatting gave up; -1 if it is neither
+    static double parseDateText(String text) {
+        String trimmed = text.trim();
+        for (DateTimeFormatter format : LEGACY_DATES) {
+            try {
+                LocalDateTime dateTime = LocalDateTime.parse(trimmed, format);
+                return dateTime.toEpochSecond(ZoneOffset.UTC) / 86_400.0 + 25_569;
+            } catch (DateTimeParseException e) {
+                // Try the next layout
+            }
+        }
+        long millis = JiraTimestamp.parseMillis(trimmed);
+        return millis != JiraTimestamp.NONE ? JiraTimestamp.toExcelDate(millis, JiraTimestamp.parseOffsetMinutes(trimmed)) : -1;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    /** Key to row hashes of the previous export, built while the sheets' XML streams past. */
+    private static final class SheetIndex extends DefaultHandler {
+        private final List<ColumnPlan.Column> columns;
+        private final int keyColumn;
+        private final SharedStrings sharedStrings;
+        private final Map<String, PreviousRow> rows = new LinkedHashMap<>();
+        // Plan columns that exist in the previous sheet and aren't filled in by hand
+        private final BitSet compared = new BitSet();
+        private final Map<String, Integer> headerColumns = new HashMap<>();
+        private int[] planColumnOf = new int[0];
+        private String name;
+        private boolean headerRead;
+        private boolean keyFound;
+        // Set while a changes sheet is read: its rows update or remove the ones read so far
+        private boolean changesSheet;
+        private int changeColumn = -1;
+        private String change;
+
+        // The row and cell being read
+        private String key;
+        private long[] cells;
+        private int column;
+        private String cellType;
+        private boolean inValue;
+        private final StringBuilder value = new StringBuilder();
+
+        private SheetIndex(List<ColumnPlan.Column> columns, int keyColumn, SharedStrings sharedStrings) {
+            this.columns = columns;
+            this.keyColumn = keyColumn;
+            this.sharedStrings = sharedStrings;
+        }
+
+        static SheetIndex read(File workbook, List<ColumnPlan.Column> columns, int keyColumn) throws IOException {
+            try (ZipFile zip = new ZipFile(workbook)) {
+                // The last sheet that isn't itself a changes sheet, then the changes sheets added after it
+                List<Map.Entry<String, String>> sheets = new ArrayList<>();
+                for (Map.Entry<String, String> sheet : WorkbookAppender.sheetParts(zip).entrySet()) {
+                    if (!sheet.getKey().endsWith(SHEET_SUFFIX)) {
+                        sheets.clear();
+                        sheets.add(sheet);
+                    } else if (!sheets.isEmpty()) {
+                        sheets.add(sheet);
+                    }
+                }
+                if (sheets.isEmpty() || zip.getEntry(sheets.get(0).getValue()) == null) {
+                    return null;
+                }
+
+                SharedStrings sharedStrings = null;
+                ZipArchiveEntry sharedStringsPart = zip.getEntry(SHARED_STRINGS);
+                if (sharedStringsPart != null) {
+                    try (InputStream in = zip.getInputStream(sharedStringsPart)) {
+                        sharedStrings = new ReadOnlySharedStringsTable(in, false);
+                    }
+                }
+
+                SheetIndex index = new SheetIndex(columns, keyColumn, sharedStrings);
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(index);
+                for (Map.Entry<String, String> sheet : sheets) {
+                    ZipArchiveEntry part = zip.getEntry(sheet.getValue());
+                    if (part == null) {
+                        continue;
+                    }
+                    index.startSheet(sheet.getKey(), sheet != sheets.get(0));
+                    try (InputStream in = new BufferedInputStream(zip.getInputStream(part), 1 << 16)) {
+                        parser.parse(new InputSource(in));
+                    }
+                    if (!index.keyFound) {
+                        return null;
+                    }
+                }
+                return index;
+            } catch (SAXException | ParserConfigurationException e) {
+                throw new IOException("Could not read the previous sheet of " + workbook + ": " + e.getMessage(), e);
+            }
+        }
+
+        private void startSheet(String sheetName, boolean changes) {
+            name = sheetName;
+            changesSheet = changes;
+            headerRead = false;
+            headerColumns.clear();
+            changeColumn = -1;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row" -> {
+                    key = null;
+                    change = null;
+                    cells = headerRead ? new long[columns.size()] : null;
+                    column = -1;
+                }
+                case "c" -> {
+                    String reference = attributes.getValue("r");
+                    column = reference != null ? columnIndex(reference) : column + 1;
+                    cellType = attributes.getValue("t");
+                    value.setLength(0);
+                }
+                case "v", "t" -> inValue = true;
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                value.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v", "t" -> inValue = false;
+                case "c" -> endCell();
+                case "row" -> endRow();
+                default -> {
+                }
+            }
+        }
+
+        private void endCell() {
+            String text = "s".equals(cellType) && sharedStrings != null && value.length() > 0
+                    ? sharedStrings.getItemAt(Integer.parseInt(value.toString())).getString()
+                    : value.toString();
+            if (!headerRead) {
+                headerColumns.putIfAbsent(text, column);
+                return;
+            }
+            if (changesSheet && column == changeColumn) {
+                change = text;
+                return;
+            }
+            int planColumn = column >= 0 && column < planColumnOf.length ? planColumnOf[column] : -1;
+            if (planColumn < 0) {
+                return;
+            }
+            if (planColumn == keyColumn) {
+                key = text.trim();
+            } else if (!compared.get(planColumn)) {
+                return; // Filled in by hand
+            } else if (columns.get(planColumn).kind == ColumnPlan.Kind.DATE && !text.isBlank()) {
+                double excelDate = cellType == null || cellType.equals("n") ? Double.parseDouble(text) : parseDateText(text);
+                cells[planColumn] = excelDate >= 0 ? dateHash(excelDate) : textHash(text);
+            } else {
+                cells[planColumn] = textHash(text);
+            }
+        }
+
+        private void endRow() {
+            if (headerRead) {
+                if (key == null || key.isEmpty()) {
+                    return;
+                }
+                if (changesSheet && Change.REMOVED.label.equals(change)) {
+                    rows.remove(key);
+                } else {
+                    rows.put(key, new PreviousRow(cells));
+                }
+                return;
+            }
+            headerRead = true;
+            if (changesSheet) {
+                readChangesHeader();
+                return;
+            }
+            for (Integer previousColumn : headerColumns.values()) {
+                if (previousColumn >= planColumnOf.length) {
+                    planColumnOf = Arrays.copyOf(planColumnOf, previousColumn + 1);
+                }
+            }
+            Arrays.fill(planColumnOf, -1);
+            for (int i = 0; i < columns.size(); i++) {
+                Integer previousColumn = headerColumns.get(columns.get(i).header);
+                if (previousColumn == null || planColumnOf[previousColumn] >= 0) {
+                    continue; // Not in the previous sheet, or a second plan column with the same header
+                }
+                planColumnOf[previousColumn] = i;
+                keyFound |= i == keyColumn;
+                if (columns.get(i).kind != ColumnPlan.Kind.BLANK && i != keyColumn) {
+                    compared.set(i);
+                }
+            }
+        }
+
+        // Maps a changes sheet's columns, which follow its "Change" column; a column it lacks is left out
+        // of the comparison, since its rows would otherwise hash it as empty
+        private void readChangesHeader() {
+            Integer changeHeader = headerColumns.get(CHANGE_HEADER);
+            changeColumn = changeHeader != null ? changeHeader : -1;
+            int width = changeColumn + 1;
+            for (Integer previousColumn : headerColumns.values()) {
+                width = Math.max(width, previousColumn + 1);
+            }
+            planColumnOf = new int[width];
+            Arrays.fill(planColumnOf, -1);
+            BitSet present = new BitSet();
+            keyFound = false;
+            for (int i = 0; i < columns.size(); i++) {
+                Integer previousColumn = headerColumns.get(columns.get(i).header);
+                if (previousColumn == null || previousColumn == changeColumn || planColumnOf[previousColumn] >= 0) {
+                    continue;
+                }
+                planColumnOf[previousColumn] = i;
+                keyFound |= i == keyColumn;
+                present.set(i);
+            }
+            compared.and(present);
+        }
+
+        // Zero-based column of an A1-style reference
+        private static int columnIndex(String cellReference) {
+            int column = 0;
+            for (int i = 0; i < cellReference.length(); i++) {
+                char c = cellReference.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                column = column * 26 + (c - 'A' + 1);
+            }
+            return column - 1;
+        }
+    }
+}
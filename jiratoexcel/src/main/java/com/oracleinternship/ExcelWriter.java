@@ -2,14 +2,18 @@ package com.oracleinternship;
 
 import org.apache.poi.common.usermodel.HyperlinkType;
 import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CreationHelper;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Hyperlink;
 import org.apache.poi.ss.usermodel.IndexedColors;
-import org.apache.poi.xssf.usermodel.XSSFHyperlink;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import org.apache.poi.ss.usermodel.WorkbookFactory;
@@ -17,160 +21,331 @@ import java.io.FileInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Locale;
+import java.util.Set;
 
 public class ExcelWriter {
 
+    // Above this many tickets the default writer switches to the streaming (SXSSF) workbook
+    static final int STREAMING_THRESHOLD = 5000;
+    // Rows kept in memory by the streaming workbook before older ones are flushed to a temp file
+    private static final int STREAMING_ROW_WINDOW = 200;
+    // Rows between progress callbacks and cancellation checks
+    private static final int PROGRESS_INTERVAL = 500;
+    // Same layout the date columns used when they were text
+    static final String DATE_FORMAT = "mm/dd/yyyy hh:mm AM/PM";
+    static final String DATE_WIDTH_SAMPLE = "11/30/2025 12:00 PM";
+    // Excel's limit on sheet names
+    static final int MAX_SHEET_NAME = 31;
+
     public static void writeTickets(List<Ticket> tickets, String filePath, String baseUrl, String dateRange, boolean updateExisting) throws IOException {
-        File file = new File(filePath);
-        XSSFWorkbook wb;
-        if (updateExisting && file.exists()) {
+        writeTickets(tickets, filePath, baseUrl, dateRange, updateExisting, tickets.size() > STREAMING_THRESHOLD);
+    }
+
+    /**
+     * @param streaming write through an {@link SXSSFWorkbook} so only a bounded window of rows is held in
+     *                  memory; the rest go to compressed temp files until the workbook is written
+     */
+    public static void writeTickets(List<Ticket> tickets, String filePath, String baseUrl, String dateRange, boolean updateExisting, boolean streaming) throws IOException {
+        writeTickets(tickets, filePath, baseUrl, dateRange, updateExisting, streaming, ExportListener.NONE);
+    }
+
+    /**
+     * Writes to a temporary file next to {@code filePath} and only replaces the target once the workbook is
+     * complete. Interrupting the calling thread stops the write and removes the temporary file.
+     */
+    public static void writeTickets(List<Ticket> tickets, String filePath, String baseUrl, String dateRange, boolean updateExisting, boolean streaming, ExportListener listener) throws IOException {
+        writeTickets(tickets, filePath, baseUrl, dateRange, updateExisting, streaming, ColumnPlan.defaultPlan(), listener);
+    }
+
+    /**
+     * Same as above with the columns laid out by {@code plan} instead of the default spec.
+     */
+    public static void writeTickets(List<Ticket> tickets, String filePath, String baseUrl, String dateRange, boolean updateExisting, boolean streaming, ColumnPlan plan, ExportListener listener) throws IOException {
+        writeTickets(tickets, filePath, baseUrl, dateRange, updateExisting, streaming, plan, ChangeSheet.OFF, listener);
+    }
+
+    /**
+     * Same as above; in update mode {@code changes} also (or only) adds a sheet of what changed since the
+     * previous export to the workbook.
+     */
+    public static void writeTickets(List<Ticket> tickets, String filePath, String baseUrl, String dateRange, boolean updateExisting, boolean streaming, ColumnPlan plan, ChangeSheet changes, ExportListener listener) throws IOException {
+        File file = new File(filePath).getAbsoluteFile();
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HHmmss"));
+        boolean appending = updateExisting && file.exists();
+
+        List<SheetSpec> sheets = new ArrayList<>();
+        if (appending && changes != ChangeSheet.OFF) {
+            DeltaSheet delta = DeltaSheet.compare(file, tickets, plan);
+            if (delta != null) {
+                listener.onMessage(delta.summary());
+                sheets.add(delta.toSheet(stamp + DeltaSheet.SHEET_SUFFIX));
+            } else {
+                listener.onMessage("No earlier sheet with an issue key column to compare with; writing the full sheet.");
+            }
+        }
+        if (changes != ChangeSheet.ONLY || sheets.isEmpty()) {
+            sheets.add(0, new SheetSpec(stamp + " from " + dateRange, tickets, plan, null));
+        }
+
+        if (appending && WorkbookAppender.canAppend(file)) {
+            // Earlier sheets are copied through at the zip level instead of being loaded
+            Path partFile = Files.createTempFile(file.getParentFile().toPath(), file.getName() + ".", ".part");
+            ExportEvents.WorkbookWrite event = new ExportEvents.WorkbookWrite();
+            event.begin();
+            try {
+                WorkbookAppender.append(file, partFile.toFile(), sheets, baseUrl, listener);
+                Files.move(partFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                commit(event, file, "append");
+            } finally {
+                Files.deleteIfExists(partFile);
+            }
+            return;
+        }
+
+        XSSFWorkbook base;
+        if (appending) {
             try (FileInputStream fis = new FileInputStream(file)) {
-                wb = (XSSFWorkbook) WorkbookFactory.create(fis);
+                base = (XSSFWorkbook) WorkbookFactory.create(fis);
             }
         } else {
-            if (file.exists()) {
-                file.delete();
+            base = new XSSFWorkbook();
+        }
+
+        // Existing sheets stay in the XSSF base; only the new sheets are streamed
+        SXSSFWorkbook streamingWb = streaming ? new SXSSFWorkbook(base, STREAMING_ROW_WINDOW, true) : null;
+        Workbook wb = streaming ? streamingWb : base;
+        Path partFile = Files.createTempFile(file.getParentFile().toPath(), file.getName() + ".", ".part");
+        try {
+            Styles styles = new Styles(wb);
+            for (SheetSpec sheet : sheets) {
+                writeSheet(wb, sheet, baseUrl, styles, listener);
+            }
+            ExportEvents.WorkbookWrite event = new ExportEvents.WorkbookWrite();
+            event.begin();
+            long writeStart = System.nanoTime();
+            try (FileOutputStream out = new FileOutputStream(partFile.toFile())) {
+                wb.write(out);
             }
-            wb = new XSSFWorkbook();
+            listener.onTimed(ExportMetrics.Phase.WORKBOOK_WRITE, System.nanoTime() - writeStart, 1);
+            Files.move(partFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            commit(event, file, streaming ? "SXSSF" : "XSSF");
+        } finally {
+            Files.deleteIfExists(partFile);
+            if (streamingWb != null) {
+                streamingWb.dispose(); // Remove the temp files backing the row window
+            }
+            wb.close();
         }
-        try (FileOutputStream out = new FileOutputStream(filePath)) {
-            XSSFSheet sheet = wb.createSheet(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HHmmss")) + " from " + dateRange);
+    }
+
+    /** Whether update mode adds a sheet listing the tickets that changed since the previous export. */
+    public enum ChangeSheet {
+        /** Only the full sheet. */
+        OFF,
+        /** The full sheet and the changes sheet. */
+        ADD,
+        /** Only the changes sheet; the next comparison applies it to the last full sheet to get this export. */
+        ONLY
+    }
+
+    /**
+     * One sheet to add: its rows and columns, and which cells to highlight ({@code highlight} may be null).
+     */
+    record SheetSpec(String name, List<Ticket> tickets, ColumnPlan plan, CellHighlight highlight) {
+    }
+
+    interface CellHighlight {
+        boolean isHighlighted(int row, int column);
+    }
+
+    // The cell styles every sheet shares, created once per workbook
+    private static final class Styles {
+        final CellStyle header;
+        final CellStyle data;
+        final CellStyle date;
+        final CellStyle highlightedData;
+        final CellStyle highlightedDate;
 
+        Styles(Workbook wb) {
             // Create header style (green accent 6, 50% darker - Excel theme color)
-            CellStyle headerStyle = wb.createCellStyle();
-            headerStyle.setFillForegroundColor(IndexedColors.DARK_GREEN.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
+            header = wb.createCellStyle();
+            header.setFillForegroundColor(IndexedColors.DARK_GREEN.getIndex());
+            header.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            header.setAlignment(HorizontalAlignment.CENTER);
 
             Font headerFont = wb.createFont();
             headerFont.setColor(IndexedColors.WHITE.getIndex());
             headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
+            header.setFont(headerFont);
 
             // Add borders to header style
-            headerStyle.setBorderTop(BorderStyle.THIN);
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-            headerStyle.setBorderLeft(BorderStyle.THIN);
-            headerStyle.setBorderRight(BorderStyle.THIN);
+            header.setBorderTop(BorderStyle.THIN);
+            header.setBorderBottom(BorderStyle.THIN);
+            header.setBorderLeft(BorderStyle.THIN);
+            header.setBorderRight(BorderStyle.THIN);
 
             // Create data style (with borders and text wrapping)
-            CellStyle dataStyle = wb.createCellStyle();
-            dataStyle.setBorderTop(BorderStyle.THIN);
-            dataStyle.setBorderBottom(BorderStyle.THIN);
-            dataStyle.setBorderLeft(BorderStyle.THIN);
-            dataStyle.setBorderRight(BorderStyle.THIN);
-            dataStyle.setWrapText(true); // Enable text wrapping
-
-            // Create header row
-            int row = 0;
-            XSSFRow header = sheet.createRow(row++);
-            String[] headers = {"ID", "Summary", "Root Cause", "Toolkit Version", "Viewer Version", "Issue Type", "Defect Jira", "Ticket Priority", "Waiting Time", "Investigation Effort", "Assignee", "Current Status",
-                               "Ageing", "Next Action Item", "Comments", "Date Created", "Date Resolved", "Linked Issues"};
-
-            for (int i = 0; i < headers.length; i++) {
-                var cell = header.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
+            data = wb.createCellStyle();
+            data.setBorderTop(BorderStyle.THIN);
+            data.setBorderBottom(BorderStyle.THIN);
+            data.setBorderLeft(BorderStyle.THIN);
+            data.setBorderRight(BorderStyle.THIN);
+            data.setWrapText(true); // Enable text wrapping
+
+            // One shared style for the date columns, which hold real Excel dates so they sort and filter
+            date = wb.createCellStyle();
+            date.cloneStyleFrom(data);
+            date.setDataFormat(wb.getCreationHelper().createDataFormat().getFormat(DATE_FORMAT));
+
+            // Changed cells on a changes sheet
+            highlightedData = wb.createCellStyle();
+            highlightedData.cloneStyleFrom(data);
+            highlightedData.setFillForegroundColor(IndexedColors.LIGHT_YELLOW.getIndex());
+            highlightedData.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            highlightedDate = wb.createCellStyle();
+            highlightedDate.cloneStyleFrom(highlightedData);
+            highlightedDate.setDataFormat(date.getDataFormat());
+        }
+    }
+
+    private static void commit(ExportEvents.WorkbookWrite event, File file, String writer) {
+        if (event.shouldCommit()) {
+            event.file = file.getName();
+            event.size = file.length();
+            event.writer = writer;
+            event.commit();
+        }
+    }
+
+    /**
+     * {@code name} cut to Excel's 31 characters, with " (2)", " (3)"... added if a sheet of that name is already
+     * in {@code taken} (lower case, as Excel compares them). A changes sheet keeps {@link DeltaSheet#SHEET_SUFFIX}
+     * at the end, so exports started in the same second (batch jobs) still get sheets of their own.
+     */
+    static String uniqueSheetName(String name, Set<String> taken) {
+        String suffix = name.endsWith(DeltaSheet.SHEET_SUFFIX) ? DeltaSheet.SHEET_SUFFIX : "";
+        String base = name.substring(0, name.length() - suffix.length());
+        for (int n = 1; ; n++) {
+            String counter = n == 1 ? "" : " (" + n + ")";
+            int room = MAX_SHEET_NAME - counter.length() - suffix.length();
+            String candidate = (base.length() > room ? base.substring(0, room) : base) + counter + suffix;
+            if (!taken.contains(candidate.toLowerCase(Locale.ROOT))) {
+                return candidate;
             }
+        }
+    }
 
-            // Create data rows
-            for (Ticket ticket : tickets) {
-                XSSFRow r = sheet.createRow(row++);
-                // Create hyperlink for ticket ID
-                var idCell = r.createCell(0);
-                idCell.setCellValue(ticket.getId());
-                idCell.setCellStyle(dataStyle); // Apply border style
-                if (baseUrl != null && !baseUrl.isEmpty()) {
-                    XSSFHyperlink link = wb.getCreationHelper().createHyperlink(HyperlinkType.URL);
-                    link.setAddress(baseUrl + "/browse/" + ticket.getId());
-                    idCell.setHyperlink(link);
-                    // Let Excel handle the hyperlink styling automatically
-                }
+    private static void writeSheet(Workbook wb, SheetSpec spec, String baseUrl, Styles styles, ExportListener listener) throws IOException {
+        ExportEvents.SheetWrite event = new ExportEvents.SheetWrite();
+        event.begin();
+        Set<String> taken = new HashSet<>();
+        for (int i = 0; i < wb.getNumberOfSheets(); i++) {
+            taken.add(wb.getSheetName(i).toLowerCase(Locale.ROOT));
+        }
+        Sheet sheet = wb.createSheet(uniqueSheetName(spec.name(), taken));
+        CreationHelper creationHelper = wb.getCreationHelper();
+        List<Ticket> tickets = spec.tickets();
+        CellHighlight highlight = spec.highlight();
 
-                var cell1 = r.createCell(1); cell1.setCellValue(ticket.getSummary()); cell1.setCellStyle(dataStyle);
-                var cell2 = r.createCell(2); cell2.setCellValue(""); cell2.setCellStyle(dataStyle); // Root Cause
-                if (ticket.getCustomfield_10704() == null || ticket.getCustomfield_10704().isEmpty()) {
-                    var cell3 = r.createCell(3); cell3.setCellValue(""); cell3.setCellStyle(dataStyle); // Toolkit Version
-                    var cell4 = r.createCell(4); cell4.setCellValue(""); cell4.setCellStyle(dataStyle); // Viewer Version
-                } else if (ticket.getCustomfield_10704().contains("Management")) {
-                    var cell3 = r.createCell(3); cell3.setCellValue(ticket.getCustomfield_10704()); cell3.setCellStyle(dataStyle); // Toolkit Version
-                    var cell4 = r.createCell(4); cell4.setCellValue(""); cell4.setCellStyle(dataStyle); // Viewer Version
-                } else {
-                    var cell4 = r.createCell(4); cell4.setCellValue(ticket.getCustomfield_10704()); cell4.setCellStyle(dataStyle); // Viewer Version
-                    var cell3 = r.createCell(3); cell3.setCellValue(""); cell3.setCellStyle(dataStyle); // Toolkit Version
+        // Create header row
+        int row = 0;
+        Row header = sheet.createRow(row++);
+        List<ColumnPlan.Column> columns = spec.plan().columns();
+
+        // Widths are estimated while rows are written; wrapped free-text columns are capped
+        ColumnWidthEstimator widths = new ColumnWidthEstimator(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnPlan.Column column = columns.get(i);
+            if (column.maxWidth > 0) {
+                widths.cap(i, column.maxWidth);
+            }
+            var cell = header.createCell(i);
+            cell.setCellValue(column.header);
+            cell.setCellStyle(styles.header);
+            widths.measureHeader(i, column.header);
+        }
+
+        boolean linkable = baseUrl != null && !baseUrl.isEmpty();
+
+        // Create data rows; each row's text is measured once the row is filled
+        long start = System.nanoTime();
+        String[] measured = new String[columns.size()];
+        for (Ticket ticket : tickets) {
+            if (row % PROGRESS_INTERVAL == 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Export cancelled");
                 }
-                var cell5 = r.createCell(5); cell5.setCellValue(ticket.getIssuetype()); cell5.setCellStyle(dataStyle); // Issue Type
-                // Defect Jira - with hyperlink
-                var cell6 = r.createCell(6);
-                String defectKey = ticket.getDefectJira();
-                if (defectKey != null && !defectKey.trim().isEmpty()) {
-                    cell6.setCellValue(defectKey);
-                    if (baseUrl != null && !baseUrl.isEmpty()) {
-                        XSSFHyperlink link = wb.getCreationHelper().createHyperlink(HyperlinkType.URL);
-                        link.setAddress(baseUrl + "/browse/" + defectKey);
-                        cell6.setHyperlink(link);
+                listener.onRowsWritten(row - 1, tickets.size());
+            }
+            int index = row - 1;
+            Row r = sheet.createRow(row++);
+            for (int i = 0; i < columns.size(); i++) {
+                ColumnPlan.Column column = columns.get(i);
+                boolean highlighted = highlight != null && highlight.isHighlighted(index, i);
+                CellStyle dataStyle = highlighted ? styles.highlightedData : styles.data;
+                switch (column.kind) {
+                    case BLANK -> createCell(r, i, "", dataStyle, measured); // Filled in by hand
+                    case TEXT -> createCell(r, i, nullToEmpty(column.text.apply(ticket)), dataStyle, measured);
+                    case DATE -> createDateCell(r, i, column.date.applyAsDouble(ticket),
+                            highlighted ? styles.highlightedDate : styles.date, dataStyle, measured);
+                    case LINK -> {
+                        String key = nullToEmpty(column.text.apply(ticket)).trim();
+                        Cell cell = createCell(r, i, key, dataStyle, measured);
+                        if (linkable && !key.isEmpty()) {
+                            // Let Excel handle the hyperlink styling automatically
+                            Hyperlink link = creationHelper.createHyperlink(HyperlinkType.URL);
+                            link.setAddress(baseUrl + "/browse/" + key);
+                            cell.setHyperlink(link);
+                        }
                     }
-                } else {
-                    cell6.setCellValue("");
                 }
-                cell6.setCellStyle(dataStyle);
-                var cell7 = r.createCell(7); cell7.setCellValue(ticket.getPriority()); cell7.setCellStyle(dataStyle); // Ticket Priority
-                var cell8 = r.createCell(8); cell8.setCellValue(parseWaitingTime(ticket.getCustomfield_27101())); cell8.setCellStyle(dataStyle); // Waiting Time
-                var cell9 = r.createCell(9); cell9.setCellValue(""); cell9.setCellStyle(dataStyle); // Investigation Effort
-                var cell10 = r.createCell(10); cell10.setCellValue(ticket.getAssignee()); cell10.setCellStyle(dataStyle); // Assignee
-                var cell11 = r.createCell(11); cell11.setCellValue(ticket.getStatus()); cell11.setCellStyle(dataStyle); // Current Status
-                var cell12 = r.createCell(12); cell12.setCellValue(""); cell12.setCellStyle(dataStyle); // Ageing
-                var cell13 = r.createCell(13); cell13.setCellValue(""); cell13.setCellStyle(dataStyle); // Next Action Item
-                var cell14 = r.createCell(14); cell14.setCellValue(""); cell14.setCellStyle(dataStyle); // Comments
-                var cell15 = r.createCell(15); cell15.setCellValue(formatDate(ticket.getCreated())); cell15.setCellStyle(dataStyle); // Date Created
-                var cell16 = r.createCell(16); cell16.setCellValue(formatDate(ticket.getResolutiondate())); cell16.setCellStyle(dataStyle); // Date Resolved
-                // Linked Issues - show other linked issues without hyperlinks
-                var cell17 = r.createCell(17);
-                String linkedIssuesText = ticket.getLinkedIssues();
-                cell17.setCellValue(linkedIssuesText != null ? linkedIssuesText : "");
-                cell17.setCellStyle(dataStyle);
-                
             }
+            widths.measureRow(measured);
+        }
 
-            // Auto-size columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
+        widths.applyTo(sheet);
+        listener.onTimed(ExportMetrics.Phase.ROW_WRITING, System.nanoTime() - start - widths.nanos(), tickets.size());
+        listener.onTimed(ExportMetrics.Phase.COLUMN_SIZING, widths.nanos(), tickets.size());
+        listener.onRowsWritten(tickets.size(), tickets.size());
+        event.sheet = sheet.getSheetName();
+        event.rows = tickets.size();
+        event.columns = columns.size();
+        event.writer = wb instanceof SXSSFWorkbook ? "SXSSF" : "XSSF";
+        event.commit();
+    }
 
-            wb.write(out);
-        }
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
     }
 
-    private static String formatDate(String dateString) {
-        if (dateString == null || dateString.isEmpty()) {
-            return "";
-        }
-        try {
-            // Assuming ISO format like "2023-10-01T12:00:00.000Z"
-            LocalDateTime dateTime = LocalDateTime.parse(dateString, DateTimeFormatter.ISO_DATE_TIME);
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm a");
-            return dateTime.format(formatter);
-        } catch (Exception e) {
-            // If parsing fails, return original string
-            return dateString;
+    // Blank when Jira has no date (e.g. unresolved tickets)
+    private static Cell createDateCell(Row row, int column, double excelDate, CellStyle dateStyle, CellStyle blankStyle, String[] measured) {
+        if (excelDate < 0) {
+            return createCell(row, column, "", blankStyle, measured);
         }
+        Cell cell = row.createCell(column);
+        cell.setCellValue(excelDate);
+        cell.setCellStyle(dateStyle);
+        measured[column] = DATE_WIDTH_SAMPLE;
+        return cell;
     }
 
-    private static String parseWaitingTime(String htmlString) {
-        if (htmlString == null || htmlString.isEmpty()) {
-            return "";
-        }
-        // Regex to extract something like "8.0 days" from HTML
-        Pattern pattern = Pattern.compile("<[^>]*>([^<]+)<[^>]*>");
-        Matcher matcher = pattern.matcher(htmlString);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return htmlString; // Return original if no match
+    // Also records the text in measured, for the width estimate
+    private static Cell createCell(Row row, int column, String value, CellStyle style, String[] measured) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(style);
+        measured[column] = value;
+        return cell;
     }
 }
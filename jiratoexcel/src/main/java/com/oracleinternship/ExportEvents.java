@@ -0,0 +1,115 @@
+package com.oracleinternship;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder events for the parts of an export worth lining up against GC and allocation in JMC.
+ * They are on in every recording, whether started with {@link ExportRecording}, -XX:StartFlightRecording
+ * or from JMC, and cost next to nothing when no recording is running.
+ */
+final class ExportEvents {
+
+    private static final String CATEGORY = "Jira To Excel";
+
+    private ExportEvents() {
+    }
+
+    @Name("com.oracleinternship.JiraRequest")
+    @Label("Jira Request")
+    @Description("One attempt at a Jira REST call, from sending it until its body is closed")
+    @Category({CATEGORY, "HTTP"})
+    @StackTrace(false)
+    static final class JiraRequest extends Event {
+        @Label("Endpoint")
+        @Description("Request path with the issue key left out, e.g. /rest/api/2/issue/{key}")
+        String endpoint;
+
+        @Label("Start At")
+        @Description("startAt of a search page, -1 for other requests")
+        int startAt = -1;
+
+        @Label("Attempt")
+        int attempt;
+
+        @Label("Status")
+        @Description("HTTP status, 0 if no response arrived")
+        int status;
+
+        @Label("Time to Headers")
+        @Timespan(Timespan.NANOSECONDS)
+        long timeToHeaders;
+
+        @Label("Bytes Received")
+        @Description("Body as sent, before decompression")
+        @DataAmount
+        long bytes;
+
+        @Label("Error")
+        String error;
+    }
+
+    @Name("com.oracleinternship.SearchPage")
+    @Label("Search Page Decoded")
+    @Description("Decoding one search response page into tickets, including reading its body")
+    @Category({CATEGORY, "Parsing"})
+    @StackTrace(false)
+    static final class SearchPage extends Event {
+        @Label("Start At")
+        int startAt;
+
+        @Label("Total")
+        int total;
+
+        @Label("Issues")
+        int issues;
+
+        @Label("Mapping Time")
+        @Description("Part of the duration spent building tickets from the decoded fields")
+        @Timespan(Timespan.NANOSECONDS)
+        long mappingTime;
+    }
+
+    @Name("com.oracleinternship.SheetWrite")
+    @Label("Sheet Write")
+    @Description("Writing the rows of one sheet")
+    @Category({CATEGORY, "Excel"})
+    @StackTrace(false)
+    static final class SheetWrite extends Event {
+        @Label("Sheet")
+        String sheet;
+
+        @Label("Rows")
+        int rows;
+
+        @Label("Columns")
+        int columns;
+
+        @Label("Writer")
+        @Description("XSSF, SXSSF or append (written into the existing zip)")
+        String writer;
+    }
+
+    @Name("com.oracleinternship.WorkbookWrite")
+    @Label("Workbook Write")
+    @Description("Saving the workbook file; when appending this includes writing the new sheets")
+    @Category({CATEGORY, "Excel"})
+    @StackTrace(false)
+    static final class WorkbookWrite extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+
+        @Label("Writer")
+        String writer;
+    }
+}
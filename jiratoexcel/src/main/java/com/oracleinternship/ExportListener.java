@@ -0,0 +1,52 @@
+package com.oracleinternship;
+
+/**
+ * Receives progress from an export as it runs. Callbacks arrive on the threads doing the export (retry
+ * notices from the search can come from several at once), so UI implementations must hand them over to
+ * their own thread.
+ */
+public interface ExportListener {
+
+    ExportListener NONE = new ExportListener() {
+    };
+
+    /** A human readable status line. */
+    default void onMessage(String message) {
+    }
+
+    /** A search page was decoded; {@code totalPages} and {@code totalTickets} are Jira's current estimate. */
+    default void onPageFetched(int pagesFetched, int totalPages, int ticketsFetched, int totalTickets) {
+    }
+
+    default void onRowsWritten(int rowsWritten, int totalRows) {
+    }
+
+    /** Time spent in one step of a phase, e.g. one request or one sheet, and how many items it handled. */
+    default void onTimed(ExportMetrics.Phase phase, long nanos, long items) {
+    }
+
+    /** A response body was read; {@code bytes} as sent, before decompression. */
+    default void onBytesReceived(long bytes) {
+    }
+
+    /** This listener without the page and row progress, for sub-tasks whose counts would mean nothing to it. */
+    default ExportListener withoutProgress() {
+        ExportListener listener = this;
+        return new ExportListener() {
+            @Override
+            public void onMessage(String message) {
+                listener.onMessage(message);
+            }
+
+            @Override
+            public void onTimed(ExportMetrics.Phase phase, long nanos, long items) {
+                listener.onTimed(phase, nanos, items);
+            }
+
+            @Override
+            public void onBytesReceived(long bytes) {
+                listener.onBytesReceived(bytes);
+            }
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package com.oracleinternship;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adds up where an export spends its time, phase by phase, from the {@link ExportListener#onTimed} and
+ * {@link ExportListener#onBytesReceived} callbacks of the client, parser and writers. Pages are fetched
+ * and decoded several at a time, so the network phases can add up to more than the wall time.
+ */
+public final class ExportMetrics {
+
+    public enum Phase {
+        /** From sending a request to its response headers, per request (retries included). */
+        HTTP_WAIT("httpWait", "HTTP wait", "requests"),
+        /** Sleeping before a retry after 429, 5xx or a dropped connection. */
+        RETRY_WAIT("retryWait", "Retry wait", "retries"),
+        /** Reading and tokenizing search pages, which includes downloading their bodies. */
+        JSON_DECODE("jsonDecode", "JSON decode", "issues"),
+        /** Building tickets from the decoded fields. */
+        TICKET_MAPPING("ticketMapping", "Ticket mapping", "tickets"),
+        /** Filling cells (or CSV/NDJSON records). */
+        ROW_WRITING("rowWriting", "Row writing", "rows"),
+        /** Estimating and setting the column widths. */
+        COLUMN_SIZING("columnSizing", "Column sizing", "rows"),
+        /** Saving the workbook: serializing and zipping it (or assembling the zip when appending). */
+        WORKBOOK_WRITE("workbookWrite", "Workbook write", "files");
+
+        private final String key;
+        private final String label;
+        private final String unit;
+
+        Phase(String key, String label, String unit) {
+            this.key = key;
+            this.label = label;
+            this.unit = unit;
+        }
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Instant started = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final LongAdder[] nanos = adders();
+    private final LongAdder[] counts = adders();
+    private final LongAdder[] items = adders();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    private static LongAdder[] adders() {
+        LongAdder[] adders = new LongAdder[Phase.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /** A listener that records the timings passing through and forwards every callback to {@code listener}. */
+    public ExportListener track(ExportListener listener) {
+        return new ExportListener() {
+            @Override
+            public void onMessage(String message) {
+                listener.onMessage(message);
+            }
+
+            @Override
+            public void onPageFetched(int pagesFetched, int totalPages, int ticketsFetched, int totalTickets) {
+                listener.onPageFetched(pagesFetched, totalPages, ticketsFetched, totalTickets);
+            }
+
+            @Override
+            public void onRowsWritten(int rowsWritten, int totalRows) {
+                listener.onRowsWritten(rowsWritten, totalRows);
+            }
+
+            @Override
+            public void onTimed(Phase phase, long phaseNanos, long phaseItems) {
+                record(phase, phaseNanos, phaseItems);
+                listener.onTimed(phase, phaseNanos, phaseItems);
+            }
+
+            @Override
+            public void onBytesReceived(long bytes) {
+                bytesReceived.add(bytes);
+                listener.onBytesReceived(bytes);
+            }
+        };
+    }
+
+    public void record(Phase phase, long phaseNanos, long phaseItems) {
+        nanos[phase.ordinal()].add(phaseNanos);
+        counts[phase.ordinal()].increment();
+        items[phase.ordinal()].add(phaseItems);
+    }
+
+    public long nanos(Phase phase) {
+        return nanos[phase.ordinal()].sum();
+    }
+
+    public long bytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    /** The phases that ran, one per line, for the status area. */
+    public String summary() {
+        StringBuilder summary = new StringBuilder(String.format("Export took %.1f s:", seconds(System.nanoTime() - startNanos)));
+        for (Phase phase : Phase.values()) {
+            long count = counts[phase.ordinal()].sum();
+            if (count == 0) {
+                continue;
+            }
+            summary.append(String.format("%n  %s: %.2f s, %,d %s", phase.label, seconds(nanos(phase)), items[phase.ordinal()].sum(), phase.unit));
+            if (phase == Phase.HTTP_WAIT) {
+                summary.append(String.format(" (%.0f ms each), %.1f MB received", nanos(phase) / 1e6 / count, bytesReceived() / 1048576.0));
+            }
+        }
+        return summary.toString();
+    }
+
+    /** Writes the totals as JSON: every phase with its seconds, how often it ran and what it handled. */
+    public void writeReport(Path reportFile, Path exportFile, int tickets) throws IOException {
+        ObjectNode report = MAPPER.createObjectNode();
+        report.put("file", exportFile.toAbsolutePath().toString());
+        report.put("startedAt", started.toString());
+        report.put("wallSeconds", seconds(System.nanoTime() - startNanos));
+        report.put("tickets", tickets);
+        report.put("bytesReceived", bytesReceived());
+        ObjectNode phases = report.putObject("phases");
+        for (Phase phase : Phase.values()) {
+            ObjectNode entry = phases.putObject(phase.key);
+            entry.put("seconds", seconds(nanos(phase)));
+            entry.put("count", counts[phase.ordinal()].sum());
+            entry.put(phase.unit, items[phase.ordinal()].sum());
+        }
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+}
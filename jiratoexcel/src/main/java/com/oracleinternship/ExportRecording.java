@@ -0,0 +1,55 @@
+package com.oracleinternship;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * A Flight Recorder recording around an export: the JDK's "profile" settings (GC, allocation, CPU samples,
+ * socket I/O) plus the {@link ExportEvents}, written to a .jfr file for JMC when closed.
+ */
+public final class ExportRecording implements AutoCloseable {
+
+    private final Recording recording;
+    private final Path file;
+
+    private ExportRecording(Recording recording, Path file) {
+        this.recording = recording;
+        this.file = file;
+    }
+
+    public static ExportRecording start(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Configuration settings;
+        try {
+            settings = Configuration.getConfiguration("profile");
+        } catch (ParseException e) {
+            throw new IOException("Could not read the JFR profile settings: " + e.getMessage(), e);
+        }
+        Recording recording = new Recording(settings);
+        recording.setName("jiratoexcel export");
+        recording.setDestination(file.toAbsolutePath());
+        recording.start();
+        return new ExportRecording(recording, file.toAbsolutePath());
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /** Stops the recording and writes it to the file. */
+    @Override
+    public void close() {
+        try {
+            recording.stop();
+        } finally {
+            recording.close();
+        }
+    }
+}
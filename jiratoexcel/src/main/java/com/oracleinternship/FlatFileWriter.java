@@ -0,0 +1,391 @@
+package com.oracleinternship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes tickets as CSV or newline-delimited JSON with the columns of the {@link ColumnPlan}, for loading
+ * into other tools. Each value is escaped and UTF-8 encoded straight into one byte buffer that is drained to
+ * a {@link FileChannel}, so there is no per-row string building and tickets can be written one at a time as
+ * the search decodes them.
+ *
+ * <p>Dates are written as Jira's own timestamps. Manual (blank) columns are empty in CSV, to keep the
+ * workbook's layout, and left out of NDJSON records. Like {@link ExcelWriter}, the file is written next to
+ * the target and only moved into place by {@link #commit()}.
+ *
+ * <p>When appending, the existing file is copied into the new one first and the rows follow it. A CSV file
+ * is only appended to when its header row is the one this plan writes; otherwise it is replaced.
+ */
+public final class FlatFileWriter implements Closeable {
+
+    public enum Format {
+        CSV(".csv"), NDJSON(".ndjson");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        /** The format of an export format name such as "CSV", or null for "Excel". */
+        public static Format of(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            if ("Excel".equalsIgnoreCase(name)) {
+                return null;
+            }
+            throw new IllegalArgumentException("Unknown export format: " + name);
+        }
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Rows between cancellation checks
+    private static final int PROGRESS_INTERVAL = 500;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path target;
+    private final Path partFile;
+    private final FileChannel channel;
+    private final Format format;
+    private final List<ColumnPlan.Column> columns;
+    // NDJSON only: '{"Header":' or ',"Header":' for each column, null for the columns left out
+    private final byte[][] keys;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int rows;
+    private long writeNanos;
+    private boolean committed;
+    private final boolean appending;
+
+    private FlatFileWriter(Path target, Format format, ColumnPlan plan, boolean append) throws IOException {
+        this.target = target.toAbsolutePath();
+        this.format = format;
+        this.columns = plan.columns();
+        Path directory = this.target.getParent();
+        this.partFile = Files.createTempFile(directory, this.target.getFileName() + ".", ".part");
+        this.channel = FileChannel.open(partFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        if (format == Format.CSV) {
+            keys = null;
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    put((byte) ',');
+                }
+                putCsv(columns.get(i).header);
+            }
+            put((byte) '\r');
+            put((byte) '\n');
+            // The buffer holds the whole header row unless it outgrew it and was flushed
+            appending = append && Files.exists(this.target) && channel.position() == 0
+                    && hasHeader(this.target, Arrays.copyOf(buffer, position - 2));
+            if (appending) {
+                position = 0;
+            }
+        } else {
+            appending = append && Files.exists(this.target);
+            // Encoded once through the buffer, which is still empty, and kept for every record
+            keys = new byte[columns.size()][];
+            boolean first = true;
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).kind == ColumnPlan.Kind.BLANK) {
+                    continue;
+                }
+                int start = position;
+                put((byte) (first ? '{' : ','));
+                putJson(columns.get(i).header);
+                put((byte) ':');
+                keys[i] = Arrays.copyOfRange(buffer, start, position);
+                position = start;
+                first = false;
+            }
+        }
+        if (appending) {
+            copyExisting();
+        }
+    }
+
+    /** Starts writing {@code target}; nothing replaces it until {@link #commit()}. */
+    public static FlatFileWriter open(Path target, Format format, ColumnPlan plan) throws IOException {
+        return open(target, format, plan, false);
+    }
+
+    /**
+     * Same as above; with {@code append}, the rows are added after those already in {@code target} (see
+     * {@link #appending()}).
+     */
+    public static FlatFileWriter open(Path target, Format format, ColumnPlan plan, boolean append) throws IOException {
+        return new FlatFileWriter(target, format, plan, append);
+    }
+
+    /**
+     * Writes {@code tickets} to {@code target} in one go. Interrupting the calling thread stops the write
+     * and leaves the target as it was.
+     */
+    public static void writeTickets(List<Ticket> tickets, Path target, Format format, ColumnPlan plan, ExportListener listener) throws IOException {
+        writeTickets(tickets, target, format, plan, false, listener);
+    }
+
+    /**
+     * Same as above, adding the rows to {@code target} when {@code append} is set and it can be appended to.
+     *
+     * @return whether the rows were appended rather than the file replaced
+     */
+    public static boolean writeTickets(List<Ticket> tickets, Path target, Format format, ColumnPlan plan, boolean append,
+                                       ExportListener listener) throws IOException {
+        try (FlatFileWriter writer = open(target, format, plan, append)) {
+            for (Ticket ticket : tickets) {
+                writer.write(ticket);
+                if (writer.rows % PROGRESS_INTERVAL == 0) {
+                    listener.onRowsWritten(writer.rows, tickets.size());
+                }
+            }
+            writer.commit();
+            listener.onTimed(ExportMetrics.Phase.ROW_WRITING, writer.writeNanos(), writer.rowsWritten());
+            listener.onRowsWritten(tickets.size(), tickets.size());
+            return writer.appending();
+        }
+    }
+
+    public void write(Ticket ticket) throws IOException {
+        if (rows % PROGRESS_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Export cancelled");
+        }
+        long start = System.nanoTime();
+        if (format == Format.CSV) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    put((byte) ',');
+                }
+                ColumnPlan.Column column = columns.get(i);
+                if (column.kind != ColumnPlan.Kind.BLANK) {
+                    putCsv(column.text.apply(ticket));
+                }
+            }
+            put((byte) '\r');
+            put((byte) '\n');
+        } else {
+            boolean any = false;
+            for (int i = 0; i < columns.size(); i++) {
+                if (keys[i] == null) {
+                    continue;
+                }
+                put(keys[i]);
+                String value = columns.get(i).text.apply(ticket);
+                if (value == null) {
+                    put(NULL);
+                } else {
+                    putJson(value);
+                }
+                any = true;
+            }
+            if (!any) {
+                put((byte) '{');
+            }
+            put((byte) '}');
+            put((byte) '\n');
+        }
+        rows++;
+        writeNanos += System.nanoTime() - start;
+    }
+
+    /** True when the rows go after those of the existing file rather than replacing it. */
+    public boolean appending() {
+        return appending;
+    }
+
+    public int rowsWritten() {
+        return rows;
+    }
+
+    /** Time spent in {@link #write} and {@link #commit}, which is also the time spent writing to the file. */
+    public long writeNanos() {
+        return writeNanos;
+    }
+
+    /** Flushes what is left and moves the file into place. */
+    public void commit() throws IOException {
+        long start = System.nanoTime();
+        flush();
+        channel.close();
+        Files.move(partFile, target, StandardCopyOption.REPLACE_EXISTING);
+        committed = true;
+        writeNanos += System.nanoTime() - start;
+    }
+
+    /** Discards the file unless it was committed. */
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            try {
+                channel.close();
+            } finally {
+                Files.deleteIfExists(partFile);
+            }
+        }
+    }
+
+    // Whether the first line of file is exactly header, ended by CRLF or LF
+    private static boolean hasHeader(Path file, byte[] header) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer start = ByteBuffer.allocate(header.length + 1);
+            while (start.hasRemaining() && in.read(start) >= 0) {
+                // Reads until the header and one more byte are in, or the file ends
+            }
+            start.flip();
+            if (start.remaining() != header.length + 1) {
+                return false;
+            }
+            byte[] line = new byte[header.length];
+            start.get(line);
+            byte end = start.get();
+            return Arrays.equals(line, header) && (end == '\r' || end == '\n');
+        }
+    }
+
+    // Copies the target into the part file, ending it with a line break if the last row has none
+    private void copyExisting() throws IOException {
+        try (FileChannel in = FileChannel.open(target, StandardOpenOption.READ)) {
+            long size = in.size();
+            for (long copied = 0; copied < size; ) {
+                copied += in.transferTo(copied, size - copied, channel);
+            }
+            if (size > 0) {
+                ByteBuffer last = ByteBuffer.allocate(1);
+                in.read(last, size - 1);
+                if (last.get(0) != '\n') {
+                    if (format == Format.CSV) {
+                        put((byte) '\r');
+                    }
+                    put((byte) '\n');
+                }
+            }
+        }
+    }
+
+    // RFC 4180: quoted only when the value has a comma, quote or line break, with quotes doubled
+    private void putCsv(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (quote) {
+            put((byte) '"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                put((byte) '"');
+            }
+            i = putChar(value, i, c);
+        }
+        if (quote) {
+            put((byte) '"');
+        }
+    }
+
+    private void putJson(String value) throws IOException {
+        put((byte) '"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                put((byte) '\\');
+                put((byte) c);
+            } else if (c < 0x20) {
+                switch (c) {
+                    case '\n' -> putEscape((byte) 'n');
+                    case '\r' -> putEscape((byte) 'r');
+                    case '\t' -> putEscape((byte) 't');
+                    case '\b' -> putEscape((byte) 'b');
+                    case '\f' -> putEscape((byte) 'f');
+                    default -> {
+                        putEscape((byte) 'u');
+                        put((byte) '0');
+                        put((byte) '0');
+                        put(HEX[c >> 4]);
+                        put(HEX[c & 0xF]);
+                    }
+                }
+            } else {
+                i = putChar(value, i, c);
+            }
+        }
+        put((byte) '"');
+    }
+
+    private void putEscape(byte c) throws IOException {
+        put((byte) '\\');
+        put(c);
+    }
+
+    // UTF-8 encodes the char at index (with its low surrogate) and returns the index of the last char used
+    private int putChar(String value, int index, char c) throws IOException {
+        if (position + 4 > buffer.length) {
+            flush();
+        }
+        if (c < 0x80) {
+            buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | c >> 6);
+            buffer[position++] = (byte) (0x80 | c & 0x3F);
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+            buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+            buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+            buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+            return index + 1;
+        } else if (Character.isSurrogate(c)) {
+            buffer[position++] = (byte) '?'; // Unpaired surrogate, as String.getBytes would
+        } else {
+            buffer[position++] = (byte) (0xE0 | c >> 12);
+            buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+            buffer[position++] = (byte) (0x80 | c & 0x3F);
+        }
+        return index;
+    }
+
+    private void put(byte b) throws IOException {
+        if (position == buffer.length) {
+            flush();
+        }
+        buffer[position++] = b;
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (position + bytes.length > buffer.length) {
+            flush();
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void flush() throws IOException {
+        ByteBuffer pending = ByteBuffer.wrap(buffer, 0, position);
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        position = 0;
+    }
+}
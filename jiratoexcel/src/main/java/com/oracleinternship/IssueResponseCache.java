@@ -0,0 +1,196 @@
+package com.oracleinternship;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Size-bounded disk cache for single issue responses, keyed by request URL (which holds the Jira base URL
+ * and issue key). Each entry keeps the body with its ETag and Last-Modified, so {@link JiraApiClient#getIssue}
+ * can serve it directly while it is younger than the TTL and revalidate it with a conditional GET after that.
+ *
+ * <p>Entries are evicted least recently used first once the bodies exceed {@code maxBytes}. Recency is kept
+ * in the body file's modification time, so it survives restarts.
+ */
+public class IssueResponseCache {
+
+    /** A cached response. {@code etag} and {@code lastModified} are null when the server sent none. */
+    public record Entry(String body, String etag, String lastModified, Instant fetchedAt) {
+    }
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(1);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Duration ttl;
+    // Entry hash -> body size, least recently used first
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private boolean loaded;
+
+    public IssueResponseCache(Path directory, long maxBytes, Duration ttl) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.ttl = ttl;
+    }
+
+    public static Path defaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".jiratoexcel", "cache", "issues");
+    }
+
+    /**
+     * @return the cached response for {@code url}, or null
+     */
+    public synchronized Entry get(String url) throws IOException {
+        ensureLoaded();
+        String hash = hash(url);
+        if (!index.containsKey(hash)) {
+            return null;
+        }
+        Path bodyFile = bodyFile(hash);
+        Path metaFile = metaFile(hash);
+        try {
+            JsonNode meta = MAPPER.readTree(metaFile.toFile());
+            if (!url.equals(meta.path("url").asText())) {
+                return null;
+            }
+            String body = Files.readString(bodyFile, StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(bodyFile, FileTime.from(Instant.now()));
+            return new Entry(body, textOrNull(meta, "etag"), textOrNull(meta, "lastModified"),
+                    Instant.ofEpochMilli(meta.path("fetchedAt").asLong()));
+        } catch (IOException e) {
+            // A half-written or deleted entry is just a miss
+            remove(hash);
+            return null;
+        }
+    }
+
+    /** True while {@code entry} can be served without asking Jira. */
+    public boolean isFresh(Entry entry) {
+        return entry.fetchedAt().plus(ttl).isAfter(Instant.now());
+    }
+
+    public synchronized void put(String url, Entry entry) throws IOException {
+        ensureLoaded();
+        Files.createDirectories(directory);
+        String hash = hash(url);
+        byte[] body = entry.body().getBytes(StandardCharsets.UTF_8);
+
+        ObjectNode meta = MAPPER.createObjectNode();
+        meta.put("url", url);
+        meta.put("etag", entry.etag());
+        meta.put("lastModified", entry.lastModified());
+        meta.put("fetchedAt", entry.fetchedAt().toEpochMilli());
+
+        // Body first: get() only trusts an entry whose meta names the same URL
+        writeAtomically(bodyFile(hash), body);
+        writeAtomically(metaFile(hash), MAPPER.writeValueAsBytes(meta));
+
+        Long previous = index.put(hash, (long) body.length);
+        totalBytes += body.length - (previous != null ? previous : 0);
+        evict();
+    }
+
+    private void evict() {
+        var iterator = index.entrySet().iterator();
+        while (totalBytes > maxBytes && index.size() > 1 && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            deleteFiles(eldest.getKey());
+        }
+    }
+
+    private void remove(String hash) {
+        Long size = index.remove(hash);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        deleteFiles(hash);
+    }
+
+    private void deleteFiles(String hash) {
+        try {
+            Files.deleteIfExists(metaFile(hash));
+            Files.deleteIfExists(bodyFile(hash));
+        } catch (IOException e) {
+            // Left for the next eviction
+        }
+    }
+
+    // Builds the LRU index from the files on first use, oldest access first
+    private void ensureLoaded() throws IOException {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> bodies = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.body")) {
+            stream.forEach(bodies::add);
+        }
+        Map<Path, FileTime> accessed = new LinkedHashMap<>();
+        for (Path body : bodies) {
+            accessed.put(body, Files.getLastModifiedTime(body));
+        }
+        bodies.sort(Comparator.comparing(accessed::get));
+        for (Path body : bodies) {
+            String name = body.getFileName().toString();
+            long size = Files.size(body);
+            index.put(name.substring(0, name.length() - ".body".length()), size);
+            totalBytes += size;
+        }
+        evict();
+    }
+
+    private Path bodyFile(String hash) {
+        return directory.resolve(hash + ".body");
+    }
+
+    private Path metaFile(String hash) {
+        return directory.resolve(hash + ".meta");
+    }
+
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, content);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String textOrNull(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+
+    private static String hash(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
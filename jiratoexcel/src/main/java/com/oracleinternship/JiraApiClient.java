@@ -1,10 +1,11 @@
 package com.oracleinternship;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -13,79 +14,409 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 public class JiraApiClient {
 
     private final String baseUrl;
     private final String token;
-    private final boolean debug;
     private final HttpClient client;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private IssueResponseCache issueCache;
+    // Null until set or first used, so a broken columns.json only fails the exports that rely on it
+    private volatile ColumnPlan columnPlan;
+    private final int maxConcurrentRequests;
+
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+    private static final int MAX_RESULTS_PER_PAGE = 1000; // Request up to 1000 results per page
+    // Keeps the request URL well under the 8 KB many proxies allow
+    private static final int KEYS_PER_QUERY = 100;
+    private static final Pattern ISSUE_KEY = Pattern.compile("[A-Z][A-Z0-9_]*-[0-9]+");
+    private static final Pattern START_AT = Pattern.compile("(?:^|&)startAt=(\\d+)");
+    private static final String LINKED_ISSUE_FIELDS = "status,priority,resolution,fixVersions";
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    // Responses that mean "not now" rather than "never": rate limited, or a proxy/node that is overloaded
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(429, 502, 503, 504);
+    private static final int MAX_ATTEMPTS = 6;
+    private static final Duration BASE_BACKOFF = Duration.ofMillis(500);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+    private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(5);
+
+    // One HttpClient for the whole JVM, so every export reuses its pooled connections (and HTTP/2
+    // sessions) instead of paying for a new TLS handshake each time
+    private static final HttpClient SHARED_CLIENT = newHttpClient();
+    private static final Log LOG = Log.get(JiraApiClient.class);
+
+    public JiraApiClient(String baseUrl, String token) {
+        this(baseUrl, token, DEFAULT_MAX_CONCURRENT_REQUESTS);
+    }
 
-    public JiraApiClient(String baseUrl, String token, boolean debug) {
+    /**
+     * @param maxConcurrentRequests upper bound on requests in flight at the same time; the client backs off
+     *                              below it while Jira is throttling and climbs back once it recovers
+     */
+    public JiraApiClient(String baseUrl, String token, int maxConcurrentRequests) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("maxConcurrentRequests must be at least 1");
+        }
         this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
         this.token = token;
-        this.debug = debug;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.limiter = new AdaptiveConcurrencyLimiter(maxConcurrentRequests);
+        this.client = SHARED_CLIENT;
+    }
 
-        this.client = HttpClient.newBuilder()
-                .followRedirects(debug ? HttpClient.Redirect.NEVER : HttpClient.Redirect.NORMAL)
+    private static HttpClient newHttpClient() {
+        // HTTP/2 is negotiated through ALPN and falls back to HTTP/1.1 when the server doesn't offer it
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
                 .connectTimeout(Duration.ofSeconds(10))
                 .build();
     }
 
+    /**
+     * Caches {@link #getIssue} responses in {@code cache}; null turns caching off.
+     */
+    public void setIssueCache(IssueResponseCache cache) {
+        this.issueCache = cache;
+    }
+
+    /**
+     * Sets the columns exports are built from; searches only ask Jira for the fields they use.
+     */
+    public void setColumnPlan(ColumnPlan columnPlan) {
+        this.columnPlan = columnPlan;
+    }
+
+    /**
+     * The plan set with {@link #setColumnPlan}, else {@link ColumnPlan#defaultPlan()}.
+     *
+     * @throws java.io.UncheckedIOException if the default column spec can't be read
+     */
+    public ColumnPlan getColumnPlan() {
+        ColumnPlan plan = columnPlan;
+        if (plan == null) {
+            plan = ColumnPlan.defaultPlan();
+            columnPlan = plan;
+        }
+        return plan;
+    }
+
     public String getIssue(String issueKey) throws IOException, InterruptedException {
+        return getIssue(issueKey, ExportListener.NONE);
+    }
+
+    /**
+     * Same as above, reporting the request's timing to {@code listener}.
+     */
+    public String getIssue(String issueKey, ExportListener listener) throws IOException, InterruptedException {
         String url = baseUrl + "rest/api/2/issue/" + issueKey;
 
-        HttpRequest request = HttpRequest.newBuilder()
+        IssueResponseCache cache = issueCache;
+        IssueResponseCache.Entry cached = cache != null ? cache.get(url) : null;
+        if (cached != null && cache.isFresh(cached)) {
+            LOG.debug("Serving %s from the issue cache", issueKey);
+            return cached.body();
+        }
+
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Accept", "application/json")
                 .header("Authorization", "Bearer " + token)
                 .header("User-Agent", "JiraApiClient/1.0")
-                .GET()
-                .build();
-
-        if (debug) {
-            System.out.println("=== Jira API Request ===");
-            System.out.println("URL: " + url);
-            System.out.println("Headers: " + request.headers());
+                .header("Accept-Encoding", ACCEPT_ENCODING)
+                .GET();
+        if (cached != null && cached.etag() != null) {
+            requestBuilder.header("If-None-Match", cached.etag());
+        }
+        if (cached != null && cached.lastModified() != null) {
+            requestBuilder.header("If-Modified-Since", cached.lastModified());
         }
+        HttpRequest request = requestBuilder.build();
+
+        LOG.debug("Issue request %s, headers:%s", url, request.headers());
+
+        return send(request, response -> {
+            logResponse(response);
+
+            try (InputStream body = decodeBody(response)) {
+                if (response.statusCode() == 304 && cached != null) {
+                    // Unchanged: keep the body, but restart its TTL and pick up any new validators
+                    cache.put(url, new IssueResponseCache.Entry(cached.body(),
+                            response.headers().firstValue("etag").orElse(cached.etag()),
+                            response.headers().firstValue("last-modified").orElse(cached.lastModified()), Instant.now()));
+                    return cached.body();
+                }
+
+                String responseBody = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                if (response.statusCode() != 200) {
+                    throw new IOException("Failed to fetch issue (" + response.statusCode() + "): " + responseBody);
+                }
+                if (cache != null) {
+                    cache.put(url, new IssueResponseCache.Entry(responseBody, response.headers().firstValue("etag").orElse(null),
+                            response.headers().firstValue("last-modified").orElse(null), Instant.now()));
+                }
+                return responseBody;
+            }
+        }, listener);
+    }
+
+    public List<Ticket> searchTickets(LocalDate startDate, LocalDate endDate) throws IOException, InterruptedException {
+        return searchTickets(startDate, endDate, null);
+    }
+
+    public List<Ticket> searchTickets(LocalDate startDate, LocalDate endDate, String assignee) throws IOException, InterruptedException {
+        return searchTickets(startDate, endDate, assignee, null);
+    }
+
+    public List<Ticket> searchTickets(LocalDate startDate, LocalDate endDate, String assignee, String project) throws IOException, InterruptedException {
+        return searchTickets(startDate, endDate, assignee, project, null);
+    }
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    public List<Ticket> searchTickets(LocalDate startDate, LocalDate endDate, String assignee, String project, List<String> issueTypes) throws IOException, InterruptedException {
+        List<Ticket> tickets = new ArrayList<>();
+        searchTickets(startDate, endDate, assignee, project, issueTypes, tickets::add);
+        return tickets;
+    }
+
+    /**
+     * Runs the date range search and hands each ticket to {@code sink} in result order, de-duplicated by
+     * issue key. Pages are decoded straight from the response stream, and at most
+     * {@code maxConcurrentRequests} pages are in flight or waiting to be emitted at any time.
+     */
+    public void searchTickets(LocalDate startDate, LocalDate endDate, String assignee, String project, List<String> issueTypes, Consumer<Ticket> sink) throws IOException, InterruptedException {
+        searchTickets(startDate, endDate, assignee, project, issueTypes, sink, ExportListener.NONE);
+    }
+
+    /**
+     * Same as {@link #searchTickets(LocalDate, LocalDate, String, String, List, Consumer)}, reporting each
+     * decoded page to {@code listener}. Interrupting the calling thread cancels the requests still in flight.
+     */
+    public void searchTickets(LocalDate startDate, LocalDate endDate, String assignee, String project, List<String> issueTypes, Consumer<Ticket> sink, ExportListener listener) throws IOException, InterruptedException {
+        String jql = buildJql(startDate, endDate, assignee, project, issueTypes);
+        ColumnPlan plan = getColumnPlan();
+        searchWithPagination(new SearchQuery(jql, plan.searchFields(), plan.extraFieldPaths(), true), sink, listener);
+    }
 
-        if (debug) {
-            System.out.println("=== Jira API Response ===");
-            System.out.println("Status: " + response.statusCode());
-            printHeaders(response.headers());
-            if (response.statusCode() == 302) {
-                System.out.println("⚠️ Redirect detected to: " + response.headers().firstValue("location").orElse("<none>"));
+    /**
+     * Keys of the tickets the date range search would return, without their fields, so a page of 1000 is a
+     * few kilobytes. {@link TicketStore} checks its stored tickets against them after a delta sync.
+     */
+    public Set<String> searchTicketKeys(LocalDate startDate, LocalDate endDate, String assignee, String project, List<String> issueTypes, ExportListener listener) throws IOException, InterruptedException {
+        String jql = buildJql(startDate, endDate, assignee, project, issueTypes);
+        Set<String> keys = new HashSet<>();
+        searchWithPagination(new SearchQuery(jql, "key", List.of(), true), ticket -> keys.add(ticket.getId()), listener.withoutProgress());
+        return keys;
+    }
+
+    /**
+     * Fetches every ticket in the project/assignee/issue type scope that was updated at or after
+     * {@code since}, regardless of its created or resolved date. Used to refresh a {@link TicketStore}.
+     */
+    public void searchTicketsUpdatedSince(String assignee, String project, List<String> issueTypes, Instant since, Consumer<Ticket> sink, ExportListener listener) throws IOException, InterruptedException {
+        // A relative offset keeps the query independent of the Jira user's profile time zone
+        long minutesAgo = Math.max(1, (Duration.between(since, Instant.now()).toSeconds() + 59) / 60);
+        StringBuilder jqlBuilder = new StringBuilder();
+        jqlBuilder.append("updated >= \"-").append(minutesAgo).append("m\"");
+        appendScope(jqlBuilder, assignee, project, issueTypes);
+        ColumnPlan plan = getColumnPlan();
+        searchWithPagination(new SearchQuery(jqlBuilder.toString(), plan.searchFields(), plan.extraFieldPaths(), true), sink, listener);
+    }
+
+    /**
+     * Fetches the given issues through the search endpoint instead of one {@link #getIssue} call each: the
+     * keys go out {@value #KEYS_PER_QUERY} at a time as {@code key in (...)} queries that run in parallel,
+     * and the tickets reach {@code sink} in the order the keys were given. An issue moved to another project
+     * comes back under its new key, in the place of the old key that was asked for.
+     *
+     * @return the keys that are malformed, don't exist or aren't visible to this token, in the order given
+     */
+    public List<String> searchTicketsByKeys(List<String> issueKeys, Consumer<Ticket> sink, ExportListener listener) throws IOException, InterruptedException {
+        ColumnPlan plan = getColumnPlan();
+        return searchByKeys(issueKeys, plan.searchFields(), plan.extraFieldPaths(), (key, ticket) -> sink.accept(ticket), listener);
+    }
+
+    /**
+     * Like {@link #searchTicketsByKeys}, but only asks for what {@link LinkedIssueEnricher} shows about a linked
+     * issue: status, priority, resolution and fix versions. {@code sink} gets the key asked for with each issue,
+     * which differs from the issue's own key when it was moved.
+     */
+    public List<String> searchLinkedIssues(List<String> issueKeys, BiConsumer<String, Ticket> sink, ExportListener listener) throws IOException, InterruptedException {
+        return searchByKeys(issueKeys, LINKED_ISSUE_FIELDS, List.of(), sink, listener);
+    }
+
+    private List<String> searchByKeys(List<String> issueKeys, String fields, List<String> extraPaths, BiConsumer<String, Ticket> sink, ExportListener listener) throws IOException, InterruptedException {
+        List<String> orderedKeys = new ArrayList<>();
+        List<String> validKeys = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String issueKey : issueKeys) {
+            String key = issueKey.trim().toUpperCase(Locale.ROOT);
+            if (!key.isEmpty() && seen.add(key)) {
+                orderedKeys.add(key);
+                // A malformed key would fail the whole query, even with validation relaxed
+                if (ISSUE_KEY.matcher(key).matches()) {
+                    validKeys.add(key);
+                }
             }
         }
 
-        if (response.statusCode() != 200) {
-            throw new IOException("Failed to fetch issue (" + response.statusCode() + "): " + response.body());
+        // By the key asked for
+        Map<String, Ticket> found = new ConcurrentHashMap<>();
+        int chunks = (validKeys.size() + KEYS_PER_QUERY - 1) / KEYS_PER_QUERY;
+        AtomicInteger chunksDone = new AtomicInteger();
+        // Per-chunk page counts would be meaningless to the caller
+        ExportListener chunkListener = listener.withoutProgress();
+
+        List<Future<Void>> queries = new ArrayList<>();
+        try {
+            for (int from = 0; from < validKeys.size(); from += KEYS_PER_QUERY) {
+                List<String> chunk = validKeys.subList(from, Math.min(from + KEYS_PER_QUERY, validKeys.size()));
+                // Keys that don't exist or aren't visible become warnings instead of failing the query
+                FutureTask<Void> query = new FutureTask<>(() -> {
+                    searchChunk(chunk, fields, extraPaths, found, chunkListener);
+                    listener.onPageFetched(chunksDone.incrementAndGet(), chunks, found.size(), validKeys.size());
+                    return null;
+                });
+                Thread.ofVirtual().name("jira-keys-" + from).start(query);
+                queries.add(query);
+            }
+            for (Future<Void> query : queries) {
+                awaitPage(query);
+            }
+        } finally {
+            for (Future<Void> query : queries) {
+                query.cancel(true);
+            }
         }
 
-        return response.body();
+        List<String> missing = new ArrayList<>();
+        for (String key : orderedKeys) {
+            Ticket ticket = found.get(key);
+            if (ticket != null) {
+                sink.accept(key, ticket);
+            } else {
+                missing.add(key);
+            }
+        }
+        return missing;
     }
 
-    public String searchIssues(LocalDate startDate, LocalDate endDate) throws IOException, InterruptedException {
-        return searchIssues(startDate, endDate, null);
+    // A moved issue answers "key in (...)" under its new key, which doesn't say which of the keys asked for it
+    // answers. Only when a chunk returned such an issue are its unanswered keys asked for again one at a time.
+    private void searchChunk(List<String> chunk, String fields, List<String> extraPaths, Map<String, Ticket> found,
+                             ExportListener listener) throws IOException, InterruptedException {
+        Map<String, Ticket> returned = new HashMap<>();
+        String jql = "key in (" + String.join(", ", chunk) + ")";
+        searchWithPagination(new SearchQuery(jql, fields, extraPaths, false), ticket -> returned.put(ticket.getId(), ticket), listener);
+
+        boolean moved = false;
+        for (String key : returned.keySet()) {
+            moved |= !chunk.contains(key);
+        }
+        for (String key : chunk) {
+            Ticket ticket = returned.get(key);
+            if (ticket == null && moved) {
+                List<Ticket> answer = new ArrayList<>(1);
+                searchWithPagination(new SearchQuery("key = " + key, fields, extraPaths, false), answer::add, listener);
+                ticket = answer.isEmpty() ? null : answer.get(0);
+            }
+            if (ticket != null) {
+                found.put(key, ticket);
+            }
+        }
     }
 
-    public String searchIssues(LocalDate startDate, LocalDate endDate, String assignee) throws IOException, InterruptedException {
-        return searchIssues(startDate, endDate, assignee, null);
-    }
+    private void searchWithPagination(SearchQuery query, Consumer<Ticket> sink, ExportListener listener) throws IOException, InterruptedException {
+        Set<String> seenKeys = new HashSet<>();
+
+        // The first page tells us the real total and the page size the server is willing to serve
+        Future<JsonParser.SearchPage> firstRequest = fetchSearchPageAsync(query, 0, listener);
+        JsonParser.SearchPage firstPage;
+        try {
+            firstPage = awaitPage(firstRequest);
+        } finally {
+            firstRequest.cancel(true);
+        }
+        int total = firstPage.total();
+        int firstCount = firstPage.tickets().size();
+        emitTickets(firstPage, seenKeys, sink);
+
+        if (firstCount == 0 || firstCount >= total) {
+            listener.onPageFetched(1, 1, firstCount, firstCount);
+            return;
+        }
+
+        // A non-final page is always full, so the server may have capped maxResults below what we asked for
+        int pageSize = firstPage.maxResults() > 0 ? Math.min(firstPage.maxResults(), firstCount) : firstCount;
+        int nextStart = pageSize;
+        int fetched = firstCount;
+        int pagesFetched = 1;
+        listener.onPageFetched(pagesFetched, (total + pageSize - 1) / pageSize, fetched, total);
+
+        // Sliding window of startAt pages: keep up to maxConcurrentRequests in flight and emit them in order
+        Deque<Future<JsonParser.SearchPage>> window = new ArrayDeque<>();
+        try {
+            while (nextStart < total || !window.isEmpty()) {
+                while (nextStart < total && window.size() < maxConcurrentRequests) {
+                    window.add(fetchSearchPageAsync(query, nextStart, listener));
+                    nextStart += pageSize;
+                }
+
+                JsonParser.SearchPage page = awaitPage(window.poll());
+                // Issues created while we were paging push the total past the windows we planned for
+                total = Math.max(total, page.total());
+                fetched += page.tickets().size();
+                emitTickets(page, seenKeys, sink);
+                listener.onPageFetched(++pagesFetched, (total + pageSize - 1) / pageSize, fetched, total);
+                LOG.debug("Fetched %d issues so far out of %d", fetched, total);
+            }
+        } finally {
+            for (Future<JsonParser.SearchPage> page : window) {
+                page.cancel(true);
+            }
+        }
 
-    public String searchIssues(LocalDate startDate, LocalDate endDate, String assignee, String project) throws IOException, InterruptedException {
-        return searchIssues(startDate, endDate, assignee, project, null);
+        LOG.debug("Fetched %d unique issues out of %d", seenKeys.size(), total);
     }
 
-    public String searchIssues(LocalDate startDate, LocalDate endDate, String assignee, String project, List<String> issueTypes) throws IOException, InterruptedException {
-        return searchIssuesWithPagination(startDate, endDate, assignee, project, issueTypes);
+    private void emitTickets(JsonParser.SearchPage page, Set<String> seenKeys, Consumer<Ticket> sink) {
+        for (Ticket ticket : page.tickets()) {
+            if (seenKeys.add(ticket.getId())) {
+                sink.accept(ticket);
+            }
+        }
     }
 
-    private String searchIssuesWithPagination(LocalDate startDate, LocalDate endDate, String assignee, String project, List<String> issueTypes) throws IOException, InterruptedException {
+    // Package-private for the benchmarks module
+    static String buildJql(LocalDate startDate, LocalDate endDate, String assignee, String project, List<String> issueTypes) {
         // Build JQL query for tickets created OR resolved within the date range, optional assignee, and optional project
         StringBuilder jqlBuilder = new StringBuilder();
         jqlBuilder.append("((created >= ").append(startDate.toString());
@@ -93,6 +424,13 @@ public class JiraApiClient {
         jqlBuilder.append(") OR (resolutiondate >= ").append(startDate.toString());
         jqlBuilder.append(" AND resolutiondate <= ").append(endDate.toString()).append("))");
 
+        appendScope(jqlBuilder, assignee, project, issueTypes);
+
+        return jqlBuilder.toString();
+    }
+
+    // Appends the project, assignee and issue type filters shared by every search
+    private static void appendScope(StringBuilder jqlBuilder, String assignee, String project, List<String> issueTypes) {
         if (project != null && !project.trim().isEmpty() && !"All Projects".equals(project)) {
             // Escape single quotes in project name and wrap in quotes
             String escapedProject = project.replace("'", "\\'");
@@ -116,100 +454,330 @@ public class JiraApiClient {
             }
             jqlBuilder.append(")");
         }
+    }
+
+    /**
+     * @param extraPaths    field paths beyond the built-in ticket fields to keep on each ticket
+     * @param validateQuery false makes Jira warn about unknown issue keys and values instead of rejecting the query
+     */
+    private record SearchQuery(String jql, String fields, List<String> extraPaths, boolean validateQuery) {
+    }
+
+    private HttpRequest buildSearchRequest(SearchQuery query, int startAt) {
+        String url = baseUrl + "rest/api/2/search?jql=" + URLEncoder.encode(query.jql(), StandardCharsets.UTF_8) + "&startAt=" + startAt + "&maxResults=" + MAX_RESULTS_PER_PAGE + "&fields=" + URLEncoder.encode(query.fields(), StandardCharsets.UTF_8);
+        if (!query.validateQuery()) {
+            // "false" is understood by both Server and Cloud (where it means "warn")
+            url += "&validateQuery=false";
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Accept", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .header("User-Agent", "JiraApiClient/1.0")
+                .header("Accept-Encoding", ACCEPT_ENCODING)
+                .GET()
+                .build();
 
-        String jql = jqlBuilder.toString();
-        String encodedJql = URLEncoder.encode(jql, StandardCharsets.UTF_8);
+        LOG.debug("Search request for the page starting at %d: %s%n    JQL: %s%n    headers:%s", startAt, url, query.jql(), request.headers());
 
-        int maxResultsPerPage = 1000; // Request up to 1000 results per page
-        String fields = "summary,status,assignee,issuetype,resolutiondate,created,priority,customfield_27101,customfield_10704,issuelinks";
+        return request;
+    }
 
-        ObjectMapper mapper = new ObjectMapper();
-        ArrayNode allIssues = mapper.createArrayNode();
-        int startAt = 0;
-        int totalFetched = 0;
+    private Future<JsonParser.SearchPage> fetchSearchPageAsync(SearchQuery query, int startAt, ExportListener listener) {
+        HttpRequest request = buildSearchRequest(query, startAt);
 
-        while (true) {
-            String url = baseUrl + "rest/api/2/search?jql=" + encodedJql + "&startAt=" + startAt + "&maxResults=" + maxResultsPerPage + "&fields=" + URLEncoder.encode(fields, StandardCharsets.UTF_8);
+        // Each page waits for the limiter on its own virtual thread; cancelling the future interrupts it,
+        // which aborts the exchange or the body download
+        FutureTask<JsonParser.SearchPage> page = new FutureTask<>(() -> send(request, response -> decodeSearchResponse(response, query.extraPaths(), listener), listener));
+        Thread.ofVirtual().name("jira-search-" + startAt).start(page);
+        return page;
+    }
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Accept", "application/json")
-                    .header("Authorization", "Bearer " + token)
-                    .header("User-Agent", "JiraApiClient/1.0")
-                    .GET()
-                    .build();
+    private static <T> T awaitPage(Future<T> page) throws IOException, InterruptedException {
+        try {
+            return page.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to search issues: " + cause.getMessage(), cause);
+        }
+    }
 
-            if (debug) {
-                System.out.println("=== Jira Search API Request (Page starting at " + startAt + ") ===");
-                System.out.println("URL: " + url);
-                System.out.println("JQL: " + jql);
-                System.out.println("Headers: " + request.headers());
+    @FunctionalInterface
+    private interface ResponseDecoder<T> {
+        T decode(HttpResponse<InputStream> response) throws IOException;
+    }
+
+    /**
+     * Sends {@code request} once the limiter allows it and decodes the response. 429, 502, 503, 504 and
+     * dropped connections are retried up to {@link #MAX_ATTEMPTS} times, waiting for the server's
+     * Retry-After or else a jittered exponential backoff; anything else goes straight to the decoder.
+     */
+    private <T> T send(HttpRequest request, ResponseDecoder<T> decoder, ExportListener listener) throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            limiter.acquire();
+
+            HttpResponse<InputStream> response;
+            ExportEvents.JiraRequest event = requestEvent(request, attempt);
+            long sent = System.nanoTime();
+            event.begin();
+            try {
+                response = client.send(request, countingBody(listener, event));
+            } catch (IOException e) {
+                limiter.onDropped(null);
+                listener.onTimed(ExportMetrics.Phase.HTTP_WAIT, System.nanoTime() - sent, 1);
+                event.error = e.getMessage() != null ? e.getMessage() : e.toString();
+                event.commit();
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                Duration wait = backoff(attempt);
+                reportRetry(listener, e.getMessage() != null ? e.getMessage() : e.toString(), attempt, wait);
+                sleep(wait, listener);
+                continue;
+            } catch (InterruptedException | RuntimeException e) {
+                limiter.onIgnored();
+                throw e;
             }
 
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            long waited = System.nanoTime() - sent;
+            listener.onTimed(ExportMetrics.Phase.HTTP_WAIT, waited, 1);
+            event.timeToHeaders = waited;
+            event.status = response.statusCode();
+
+            int status = response.statusCode();
+            if (RETRYABLE_STATUSES.contains(status) && attempt < MAX_ATTEMPTS) {
+                Duration retryAfter = retryAfter(response.headers());
+                closeQuietly(response.body());
+                limiter.onDropped(retryAfter);
+                Duration wait = retryAfter != null ? retryAfter : backoff(attempt);
+                reportRetry(listener, "Jira answered " + status, attempt, wait);
+                sleep(wait, listener);
+                continue;
+            }
 
-            if (debug) {
-                System.out.println("=== Jira Search API Response ===");
-                System.out.println("Status: " + response.statusCode());
-                printHeaders(response.headers());
-                if (response.statusCode() == 302) {
-                    System.out.println("⚠️ Redirect detected to: " + response.headers().firstValue("location").orElse("<none>"));
+            boolean decoded = false;
+            try {
+                T result = decoder.decode(response);
+                decoded = true;
+                return result;
+            } finally {
+                if (decoded) {
+                    limiter.onSuccess();
+                } else if (RETRYABLE_STATUSES.contains(status)) {
+                    limiter.onDropped(null);
+                } else {
+                    limiter.onIgnored();
                 }
             }
+        }
+    }
+
+    private static void sleep(Duration wait, ExportListener listener) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            Thread.sleep(wait);
+        } finally {
+            listener.onTimed(ExportMetrics.Phase.RETRY_WAIT, System.nanoTime() - start, 1);
+        }
+    }
+
+    // The Flight Recorder event for one attempt; the path keeps its shape but not the issue key
+    private static ExportEvents.JiraRequest requestEvent(HttpRequest request, int attempt) {
+        ExportEvents.JiraRequest event = new ExportEvents.JiraRequest();
+        if (event.isEnabled()) {
+            event.endpoint = ISSUE_KEY.matcher(request.uri().getPath()).replaceAll("{key}");
+            event.attempt = attempt;
+            String query = request.uri().getRawQuery();
+            Matcher startAt = START_AT.matcher(query != null ? query : "");
+            if (startAt.find()) {
+                event.startAt = Integer.parseInt(startAt.group(1));
+            }
+        }
+        return event;
+    }
+
+    // Bodies as input streams that report how many bytes came over the wire once they are closed,
+    // which is also when the request's event ends
+    private static HttpResponse.BodyHandler<InputStream> countingBody(ExportListener listener, ExportEvents.JiraRequest event) {
+        return responseInfo -> HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(),
+                body -> new FilterInputStream(body) {
+                    private long bytes;
+                    private boolean reported;
+
+                    @Override
+                    public int read() throws IOException {
+                        int b = super.read();
+                        if (b >= 0) {
+                            bytes++;
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int offset, int length) throws IOException {
+                        int n = super.read(buffer, offset, length);
+                        if (n > 0) {
+                            bytes += n;
+                        }
+                        return n;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            if (!reported) {
+                                reported = true;
+                                listener.onBytesReceived(bytes);
+                                event.bytes = bytes;
+                                event.commit();
+                            }
+                        }
+                    }
+                });
+    }
+
+    private void reportRetry(ExportListener listener, String reason, int attempt, Duration wait) {
+        String message = String.format("%s, retrying in %.1f s (attempt %d of %d, %d requests at a time)",
+                reason, wait.toMillis() / 1000.0, attempt + 1, MAX_ATTEMPTS, limiter.currentLimit());
+        listener.onMessage(message);
+        LOG.debug("%s", message);
+    }
+
+    // "Equal jitter": half the exponential delay is fixed, the other half random, so retries spread out
+    private static Duration backoff(int attempt) {
+        long capMillis = Math.min(MAX_BACKOFF.toMillis(), BASE_BACKOFF.toMillis() << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(capMillis / 2, capMillis + 1));
+    }
+
+    /**
+     * Retry-After as either delay-seconds or an HTTP date, capped at {@link #MAX_RETRY_AFTER}; null if absent or unreadable.
+     */
+    static Duration retryAfter(HttpHeaders headers) {
+        String value = headers.firstValue("retry-after").orElse("").trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        Duration delay;
+        try {
+            delay = Duration.ofSeconds(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            try {
+                delay = Duration.between(Instant.now(), ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+            } catch (DateTimeParseException dateException) {
+                return null;
+            }
+        }
+        if (delay.isNegative()) {
+            return Duration.ZERO;
+        }
+        return delay.compareTo(MAX_RETRY_AFTER) > 0 ? MAX_RETRY_AFTER : delay;
+    }
+
+    private JsonParser.SearchPage decodeSearchResponse(HttpResponse<InputStream> response, List<String> extraPaths, ExportListener listener) throws IOException {
+        logResponse(response);
 
+        try (InputStream body = decodeBody(response)) {
             if (response.statusCode() != 200) {
-                throw new IOException("Failed to search issues (" + response.statusCode() + "): " + response.body());
+                throw new IOException("Failed to search issues (" + response.statusCode() + "): " + readPrefix(body, 2000));
             }
 
             // Check if response is actually JSON
             String contentType = response.headers().firstValue("content-type").orElse("");
             if (!contentType.contains("application/json")) {
-                throw new IOException("Expected JSON response but got: " + contentType + ". Response body: " + response.body().substring(0, Math.min(500, response.body().length())));
+                throw new IOException("Expected JSON response but got: " + contentType + ". Response body: " + readPrefix(body, 500));
             }
 
-            // Basic check if response starts with JSON
-            String body = response.body().trim();
-            if (!body.startsWith("{") && !body.startsWith("[")) {
-                throw new IOException("Response does not appear to be valid JSON. Response body starts with: " + body.substring(0, Math.min(100, body.length())));
+            try {
+                return JsonParser.readSearchPage(body, extraPaths, listener);
+            } catch (JsonProcessingException e) {
+                throw new IOException("Response does not appear to be valid JSON: " + e.getOriginalMessage(), e);
             }
+        }
+    }
 
-            JsonNode root = mapper.readTree(body);
-            int total = root.get("total").asInt();
-            JsonNode issues = root.get("issues");
-
-            if (issues != null && issues.isArray()) {
-                allIssues.addAll((ArrayNode) issues);
-                int issuesFetched = issues.size();
-                totalFetched += issuesFetched;
+    /**
+     * Undoes the Content-Encoding the server applied. HttpClient leaves compression entirely to the
+     * caller, so whatever we advertise in Accept-Encoding has to be handled here.
+     */
+    static InputStream decodeBody(HttpResponse<InputStream> response) throws IOException {
+        InputStream body = response.body();
+        String encoding = response.headers().firstValue("content-encoding").orElse("").trim().toLowerCase(Locale.ROOT);
+        if (encoding.isEmpty() || encoding.equals("identity") || response.statusCode() == 204 || response.statusCode() == 304) {
+            return body;
+        }
+        try {
+            return switch (encoding) {
+                case "gzip", "x-gzip" -> gunzip(body);
+                case "deflate" -> inflate(body);
+                default -> throw new IOException("Unsupported Content-Encoding: " + encoding);
+            };
+        } catch (IOException e) {
+            closeQuietly(body);
+            throw e;
+        }
+    }
 
-                if (debug) {
-                    System.out.println("Fetched " + issuesFetched + " issues in this page. Total fetched so far: " + totalFetched + " out of " + total);
-                }
+    private static InputStream gunzip(InputStream body) throws IOException {
+        try {
+            return new GZIPInputStream(body, 8192);
+        } catch (EOFException e) {
+            // Some servers flag an empty (error) body as gzip; let the caller see the status instead
+            return InputStream.nullInputStream();
+        }
+    }
 
-                // If we've fetched all issues or if no more issues in this response, break
-                if (totalFetched >= total || issuesFetched == 0) {
-                    break;
+    // "deflate" should be zlib-wrapped, but some servers send a raw deflate stream; the zlib header tells them apart
+    private static InputStream inflate(InputStream body) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(body, 8192);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        boolean zlibWrapped = first >= 0 && second >= 0 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+        Inflater inflater = new Inflater(!zlibWrapped);
+        return new InflaterInputStream(buffered, inflater, 8192) {
+            @Override
+            public void close() throws IOException {
+                // InflaterInputStream only ends the inflaters it created itself
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
                 }
-
-                // Move to next page
-                startAt += issuesFetched;
-            } else {
-                break; // No issues array, something went wrong
             }
-        }
+        };
+    }
 
-        // Create final combined response
-        ObjectNode finalRoot = mapper.createObjectNode();
-        finalRoot.put("total", allIssues.size());
-        finalRoot.put("maxResults", allIssues.size());
-        finalRoot.put("startAt", 0);
-        finalRoot.set("issues", allIssues);
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            // Nothing left to clean up
+        }
+    }
 
-        return mapper.writeValueAsString(finalRoot);
+    private static String readPrefix(InputStream body, int maxBytes) throws IOException {
+        return new String(body.readNBytes(maxBytes), StandardCharsets.UTF_8);
     }
 
-    private void printHeaders(HttpHeaders headers) {
-        headers.map().forEach((k, v) -> System.out.println(k + ": " + v));
+    // Redirects are followed, so they are logged from the chain of earlier responses (a login page redirect
+    // is what an expired token usually looks like)
+    private static void logResponse(HttpResponse<?> response) {
+        if (!LOG.isDebugEnabled()) {
+            return;
+        }
+        LOG.debug("Response %d from %s, headers:%s", response.statusCode(), response.uri(), response.headers());
+        for (var earlier = response.previousResponse(); earlier.isPresent(); earlier = earlier.get().previousResponse()) {
+            HttpResponse<?> redirect = earlier.get();
+            LOG.debug("Redirected by %d from %s to %s", redirect.statusCode(), redirect.uri(),
+                    redirect.headers().firstValue("location").orElse("<none>"));
+        }
     }
 
 
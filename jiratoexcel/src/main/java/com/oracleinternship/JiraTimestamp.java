@@ -0,0 +1,213 @@
+package com.oracleinternship;
+
+/**
+ * Reads and writes Jira timestamps ({@code 2025-11-03T10:15:00.000-0600}) as epoch millis plus the UTC
+ * offset they were written in, so {@link Ticket} can keep them as primitives.
+ *
+ * <p>Parsing walks the fixed layout character by character: no exceptions, no intermediate objects. It also
+ * accepts {@code Z} and {@code ±HH:MM} offsets, one to nine fraction digits (or none), and treats a missing
+ * offset as UTC. Anything else is {@link #NONE}.
+ */
+final class JiraTimestamp {
+
+    /** Marks a missing or unreadable timestamp. */
+    static final long NONE = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final int INVALID_OFFSET = Integer.MIN_VALUE;
+
+    private JiraTimestamp() {
+    }
+
+    /**
+     * @return epoch millis, or {@link #NONE} if {@code text} is empty or not a Jira timestamp
+     */
+    static long parseMillis(CharSequence text) {
+        if (text == null || text.length() < 19) {
+            return NONE;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59
+                || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return NONE;
+        }
+
+        int pos = 19;
+        int millis = 0;
+        if (pos < text.length() && text.charAt(pos) == '.') {
+            int start = ++pos;
+            while (pos < text.length() && isDigit(text.charAt(pos))) {
+                if (pos - start < 3) {
+                    millis = millis * 10 + (text.charAt(pos) - '0');
+                }
+                pos++;
+            }
+            int fractionDigits = pos - start;
+            if (fractionDigits == 0 || fractionDigits > 9) {
+                return NONE;
+            }
+            for (int i = fractionDigits; i < 3; i++) {
+                millis *= 10;
+            }
+        }
+
+        int offsetMinutes = offsetMinutes(text, pos);
+        if (offsetMinutes == INVALID_OFFSET) {
+            return NONE;
+        }
+        long seconds = epochDay(year, month, day) * 86_400L + hour * 3600L + minute * 60L + second - offsetMinutes * 60L;
+        return seconds * 1000L + millis;
+    }
+
+    /**
+     * @return the UTC offset of {@code text} in minutes, or 0 if it has none or can't be read
+     */
+    static short parseOffsetMinutes(CharSequence text) {
+        if (text == null || text.length() < 19) {
+            return 0;
+        }
+        int pos = 19;
+        if (pos < text.length() && text.charAt(pos) == '.') {
+            pos++;
+            while (pos < text.length() && isDigit(text.charAt(pos))) {
+                pos++;
+            }
+        }
+        int offsetMinutes = offsetMinutes(text, pos);
+        return offsetMinutes == INVALID_OFFSET ? 0 : (short) offsetMinutes;
+    }
+
+    /**
+     * @return the Jira form of {@code millis} in the given offset, or "" for {@link #NONE}
+     */
+    static String format(long millis, short offsetMinutes) {
+        if (millis == NONE) {
+            return "";
+        }
+        long wallMillis = millis + offsetMinutes * 60_000L;
+        long epochDay = Math.floorDiv(wallMillis, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(wallMillis, MILLIS_PER_DAY);
+
+        // Civil date from days since 1970-01-01 (Howard Hinnant's algorithm)
+        long z = epochDay + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        StringBuilder out = new StringBuilder(28);
+        pad(out, year, 4).append('-');
+        pad(out, month, 2).append('-');
+        pad(out, day, 2).append('T');
+        pad(out, millisOfDay / 3_600_000, 2).append(':');
+        pad(out, millisOfDay / 60_000 % 60, 2).append(':');
+        pad(out, millisOfDay / 1000 % 60, 2).append('.');
+        pad(out, millisOfDay % 1000, 3);
+        int offset = Math.abs(offsetMinutes);
+        out.append(offsetMinutes < 0 ? '-' : '+');
+        pad(out, offset / 60, 2);
+        pad(out, offset % 60, 2);
+        return out.toString();
+    }
+
+    /**
+     * Days since 1900-01-00 in the 1900 date system Excel uses, for the wall-clock time the timestamp was
+     * written in (what Jira showed its author), or -1 for {@link #NONE}.
+     */
+    static double toExcelDate(long millis, short offsetMinutes) {
+        if (millis == NONE) {
+            return -1;
+        }
+        // 25569 is 1970-01-01; Excel's phantom 1900-02-29 is already counted in it
+        return (millis + offsetMinutes * 60_000L) / (double) MILLIS_PER_DAY + 25_569;
+    }
+
+    // Offset starting at pos: Z, +HHMM, +HH:MM, +HH, or nothing (UTC)
+    private static int offsetMinutes(CharSequence text, int pos) {
+        int length = text.length();
+        if (pos == length) {
+            return 0;
+        }
+        char sign = text.charAt(pos);
+        if (sign == 'Z') {
+            return pos + 1 == length ? 0 : INVALID_OFFSET;
+        }
+        if (sign != '+' && sign != '-') {
+            return INVALID_OFFSET;
+        }
+        int hours = digits(text, pos + 1, 2);
+        int minutes;
+        int rest = length - (pos + 3);
+        if (rest == 0) {
+            minutes = 0;
+        } else if (rest == 2) {
+            minutes = digits(text, pos + 3, 2);
+        } else if (rest == 3 && text.charAt(pos + 3) == ':') {
+            minutes = digits(text, pos + 4, 2);
+        } else {
+            return INVALID_OFFSET;
+        }
+        if (hours < 0 || hours > 18 || minutes < 0 || minutes > 59) {
+            return INVALID_OFFSET;
+        }
+        int total = hours * 60 + minutes;
+        return sign == '-' ? -total : total;
+    }
+
+    // Value of count decimal digits at pos, or -1 if any of them isn't a digit
+    private static int digits(CharSequence text, int pos, int count) {
+        if (pos + count > text.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = pos; i < pos + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int daysInMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    // Days since 1970-01-01 of a civil date (Howard Hinnant's algorithm)
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static StringBuilder pad(StringBuilder out, long value, int width) {
+        String digits = Long.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            out.append('0');
+        }
+        return out.append(digits);
+    }
+}
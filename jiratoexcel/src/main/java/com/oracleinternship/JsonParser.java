@@ -1,14 +1,33 @@
 package com.oracleinternship;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class JsonParser {
+    // Shared factory for the streaming path; it is thread-safe and carries an ObjectMapper codec
+    // so the odd custom field object can still be read as a (small) tree
+    private static final JsonFactory STREAM_FACTORY = new ObjectMapper().getFactory();
+    private static final Log LOG = Log.get(JsonParser.class);
+
     private String rawJson;
 
+    /**
+     * One page of a Jira search response, decoded straight into tickets.
+     */
+    public record SearchPage(int startAt, int maxResults, int total, List<Ticket> tickets) {
+    }
+
     public JsonParser(String rawJson) {
         this.rawJson = rawJson;
     }
@@ -37,15 +56,8 @@ public class JsonParser {
         ticket.setResolutiondate(resolutiondate);
         ticket.setCustomfield_10704(customfield_10704);
 
-        System.out.println("Ticket Details:");
-        System.out.println("ID: " + ticket.getId());
-        System.out.println("Summary: " + ticket.getSummary());
-        System.out.println("Status: " + ticket.getStatus());
-        System.out.println("Assignee: " + ticket.getAssignee());
-        System.out.println("Custom Field 27101: " + ticket.getCustomfield_27101());
-        System.out.println("Issue Type: " + ticket.getIssuetype());
-        System.out.println("Resolution Date: " + ticket.getResolutiondate());
-        System.out.println("Custom Field 10704: " + ticket.getCustomfield_10704());
+        LOG.debug("Ticket %s: summary %s, status %s, assignee %s, custom field 27101 %s, issue type %s, resolved %s, custom field 10704 %s",
+                id, summary, status, assignee, customfield_27101, issuetype, resolutiondate, customfield_10704);
 
         // // Save cleaned JSON to file
         // mapper.writerWithDefaultPrettyPrinter().writeValue(new File(outputFilePath), root);
@@ -75,6 +87,7 @@ public class JsonParser {
                 String customfield_10704 = getTextValue(fields, "customfield_10704");
                 String priority = getTextValue(fields.path("priority"), "name");
                 String created = getTextValue(fields, "created");
+                String updated = getTextValue(fields, "updated");
                 String[] linkResults = getSeparatedLinks(fields.get("issuelinks"));
 
                 ticket.setId(id);
@@ -87,6 +100,7 @@ public class JsonParser {
                 ticket.setCustomfield_10704(customfield_10704);
                 ticket.setPriority(priority);
                 ticket.setCreated(created);
+                ticket.setUpdated(updated);
                 ticket.setDefectJira(linkResults[0]); // defect ticket
                 ticket.setLinkedIssues(linkResults[1]); // other linked issues
 
@@ -98,6 +112,13 @@ public class JsonParser {
     }
 
     public Ticket parseSingleIssue() throws IOException {
+        return parseSingleIssue(Set.of());
+    }
+
+    /**
+     * Same as {@link #parseSingleIssue()}, also keeping the given extra field paths (see {@link ColumnPlan}).
+     */
+    public Ticket parseSingleIssue(Collection<String> extraPaths) throws IOException {
         ObjectMapper mapper = new ObjectMapper();
         JsonNode root = mapper.readTree(rawJson);
 
@@ -126,12 +147,283 @@ public class JsonParser {
         ticket.setCustomfield_10704(customfield_10704);
         ticket.setDefectJira(linkResults[0]);
         ticket.setLinkedIssues(linkResults[1]);
-        
+        for (String path : extraPaths) {
+            ticket.setExtraField(path, extraValue(fields.get(rootOf(path)), path));
+        }
+
+        return ticket;
+    }
+
+    /**
+     * Decodes a search response page token by token, emitting a {@link Ticket} per issue without
+     * building a tree of the page. Memory use is bounded by the number of issues in the page.
+     */
+    public static SearchPage readSearchPage(InputStream in) throws IOException {
+        return readSearchPage(in, Set.of());
+    }
+
+    /**
+     * Same as {@link #readSearchPage(InputStream)}, also keeping the given extra field paths on each ticket.
+     */
+    public static SearchPage readSearchPage(InputStream in, Collection<String> extraPaths) throws IOException {
+        return readSearchPage(in, extraPaths, ExportListener.NONE);
+    }
+
+    /**
+     * Same as above, reporting the time spent decoding the page and mapping its issues to tickets.
+     */
+    public static SearchPage readSearchPage(InputStream in, Collection<String> extraPaths, ExportListener listener) throws IOException {
+        ExportEvents.SearchPage event = new ExportEvents.SearchPage();
+        event.begin();
+        long start = System.nanoTime();
+        long[] mappingNanos = new long[1];
+        Set<String> extraRoots = new HashSet<>();
+        for (String path : extraPaths) {
+            extraRoots.add(rootOf(path));
+        }
+        int startAt = 0;
+        int maxResults = 0;
+        int total = 0;
+        List<Ticket> tickets = new ArrayList<>();
+
+        try (com.fasterxml.jackson.core.JsonParser p = STREAM_FACTORY.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object at the start of the search response");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                JsonToken token = p.nextToken();
+                switch (name) {
+                    case "startAt" -> startAt = p.getValueAsInt();
+                    case "maxResults" -> maxResults = p.getValueAsInt();
+                    case "total" -> total = p.getValueAsInt();
+                    case "issues" -> {
+                        if (token == JsonToken.START_ARRAY) {
+                            while (p.nextToken() == JsonToken.START_OBJECT) {
+                                tickets.add(readIssue(p, extraPaths, extraRoots, mappingNanos));
+                            }
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                    default -> p.skipChildren();
+                }
+            }
+        }
+
+        long mapping = mappingNanos[0];
+        listener.onTimed(ExportMetrics.Phase.JSON_DECODE, System.nanoTime() - start - mapping, tickets.size());
+        listener.onTimed(ExportMetrics.Phase.TICKET_MAPPING, mapping, tickets.size());
+        event.startAt = startAt;
+        event.total = total;
+        event.issues = tickets.size();
+        event.mappingTime = mapping;
+        event.commit();
+        return new SearchPage(startAt, maxResults, total, tickets);
+    }
+
+    // Expects the parser to be positioned on the START_OBJECT of an issue; adds the time spent building the
+    // ticket from its fields to mappingNanos[0]
+    private static Ticket readIssue(com.fasterxml.jackson.core.JsonParser p, Collection<String> extraPaths,
+            Set<String> extraRoots, long[] mappingNanos) throws IOException {
+        String id = "";
+        String summary = "";
+        String status = "";
+        String assignee = "";
+        String customfield_27101 = "";
+        String issuetype = "";
+        String resolutiondate = "";
+        String customfield_10704 = "";
+        String priority = "";
+        String created = "";
+        String updated = "";
+        String resolution = "";
+        String fixVersions = "";
+        String[] linkResults = {"", ""};
+        Map<String, JsonNode> extraValues = null;
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            JsonToken token = p.nextToken();
+            if ("key".equals(name)) {
+                id = p.getValueAsString("");
+            } else if ("fields".equals(name) && token == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = p.currentName();
+                    p.nextToken();
+                    switch (field) {
+                        case "summary" -> summary = readTextValue(p);
+                        case "status" -> status = readNestedText(p, "name");
+                        case "assignee" -> assignee = readNestedText(p, "displayName");
+                        case "customfield_27101" -> customfield_27101 = readTextValue(p);
+                        case "issuetype" -> issuetype = readNestedText(p, "name");
+                        case "resolutiondate" -> resolutiondate = readTextValue(p);
+                        case "customfield_10704" -> customfield_10704 = readTextValue(p);
+                        case "priority" -> priority = readNestedText(p, "name");
+                        case "created" -> created = readTextValue(p);
+                        case "updated" -> updated = readTextValue(p);
+                        case "resolution" -> resolution = readNestedText(p, "name");
+                        case "fixVersions" -> fixVersions = readNames(p);
+                        case "issuelinks" -> linkResults = readSeparatedLinks(p);
+                        default -> {
+                            if (extraRoots.contains(field)) {
+                                // Only the fields a column asks for are kept, each as a small tree
+                                if (extraValues == null) {
+                                    extraValues = new HashMap<>();
+                                }
+                                extraValues.put(field, p.readValueAsTree());
+                            } else {
+                                p.skipChildren();
+                            }
+                        }
+                    }
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+
+        long mappingStart = System.nanoTime();
+        Ticket ticket = new Ticket();
+        ticket.setId(id);
+        ticket.setSummary(summary);
+        ticket.setStatus(status);
+        ticket.setAssignee(assignee);
+        ticket.setCustomfield_27101(customfield_27101);
+        ticket.setIssuetype(issuetype);
+        ticket.setResolutiondate(resolutiondate);
+        ticket.setCustomfield_10704(customfield_10704);
+        ticket.setPriority(priority);
+        ticket.setCreated(created);
+        ticket.setUpdated(updated);
+        ticket.setResolution(resolution);
+        ticket.setFixVersions(fixVersions);
+        ticket.setDefectJira(linkResults[0]); // defect ticket
+        ticket.setLinkedIssues(linkResults[1]); // other linked issues
+        for (String path : extraPaths) {
+            ticket.setExtraField(path, extraValue(extraValues != null ? extraValues.get(rootOf(path)) : null, path));
+        }
+        mappingNanos[0] += System.nanoTime() - mappingStart;
         return ticket;
     }
 
-    private String getTextValue(JsonNode node, String fieldName) {
+    private static String rootOf(String path) {
+        int dot = path.indexOf('.');
+        return dot < 0 ? path : path.substring(0, dot);
+    }
+
+    // Follows the rest of a dotted path (e.g. "reporter.displayName") from the value of its root field
+    private static String extraValue(JsonNode rootValue, String path) {
+        JsonNode node = rootValue;
+        int start = path.indexOf('.');
+        while (node != null && start >= 0) {
+            int end = path.indexOf('.', start + 1);
+            node = node.get(end < 0 ? path.substring(start + 1) : path.substring(start + 1, end));
+            start = end;
+        }
+        return textOf(node);
+    }
+
+    // Joins the "name" of every object in an array such as fixVersions
+    private static String readNames(com.fasterxml.jackson.core.JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return "";
+        }
+        List<String> names = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            String name = readNestedText(p, "name");
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return String.join(", ", names);
+    }
+
+    // Streaming counterpart of getTextValue(fields, name) for the current value
+    private static String readTextValue(com.fasterxml.jackson.core.JsonParser p) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return "";
+        }
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            // Version pickers and selects are small objects; decode just this value as a tree
+            JsonNode value = p.readValueAsTree();
+            return textOf(value);
+        }
+        return p.getText();
+    }
+
+    // Streaming counterpart of getTextValue(fields.path(object), childName) for the current value
+    private static String readNestedText(com.fasterxml.jackson.core.JsonParser p, String childName) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return "";
+        }
+        String result = "";
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            if (childName.equals(name)) {
+                result = readTextValue(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    private static String[] readSeparatedLinks(com.fasterxml.jackson.core.JsonParser p) throws IOException {
+        LinkCollector links = new LinkCollector();
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return links.result();
+        }
+
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            String linkType = "";
+            String outwardKey = null;
+            String inwardKey = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "type" -> linkType = readNestedText(p, "name");
+                    case "outwardIssue" -> outwardKey = readNestedKey(p);
+                    case "inwardIssue" -> inwardKey = readNestedKey(p);
+                    default -> p.skipChildren();
+                }
+            }
+            links.add(linkType, outwardKey);
+            links.add(linkType, inwardKey);
+        }
+        return links.result();
+    }
+
+    private static String readNestedKey(com.fasterxml.jackson.core.JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+        String key = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            if ("key".equals(name)) {
+                key = p.getValueAsString();
+            } else {
+                p.skipChildren();
+            }
+        }
+        return key;
+    }
+
+    private static String getTextValue(JsonNode node, String fieldName) {
         JsonNode fieldNode = node.get(fieldName);
+        return textOf(fieldNode);
+    }
+
+    private static String textOf(JsonNode fieldNode) {
         if (fieldNode == null || fieldNode.isNull()) return "";
 
         if (fieldNode.isTextual()) {
@@ -168,57 +460,70 @@ public class JsonParser {
         }
     }
 
-    private String[] getSeparatedLinks(JsonNode issuelinksNode) {
-        String[] result = {"", ""}; // [defectKey, otherLinks]
+    // Package-private for the benchmarks module
+    static String[] getSeparatedLinks(JsonNode issuelinksNode) {
+        LinkCollector links = new LinkCollector();
 
         if (issuelinksNode == null || !issuelinksNode.isArray()) {
-            return result;
+            return links.result();
         }
 
-        List<String> defectKeys = new ArrayList<>();
-        List<String> otherKeys = new ArrayList<>();
-
         for (JsonNode link : issuelinksNode) {
             String linkType = getTextValue(link, "type");
-            boolean isDefectLink = linkType != null &&
-                                 (linkType.toLowerCase().contains("defect") ||
-                                  linkType.toLowerCase().contains("bug") ||
-                                  linkType.toLowerCase().contains("issue"));
 
             if (link.has("outwardIssue")) {
                 JsonNode outward = link.get("outwardIssue");
                 if (outward.has("key")) {
-                    String key = outward.get("key").asText();
-                    if (isDefectLink) {
-                        defectKeys.add(key);
-                    } else {
-                        otherKeys.add(key);
-                    }
+                    links.add(linkType, outward.get("key").asText());
                 }
             }
             if (link.has("inwardIssue")) {
                 JsonNode inward = link.get("inwardIssue");
                 if (inward.has("key")) {
-                    String key = inward.get("key").asText();
-                    if (isDefectLink) {
-                        defectKeys.add(key);
-                    } else {
-                        otherKeys.add(key);
-                    }
+                    links.add(linkType, inward.get("key").asText());
                 }
             }
         }
 
-        // Take first defect key found (if any)
-        if (!defectKeys.isEmpty()) {
-            result[0] = defectKeys.get(0);
-        }
+        return links.result();
+    }
 
-        // Join other linked issues
-        if (!otherKeys.isEmpty()) {
-            result[1] = String.join(", ", otherKeys);
+    /**
+     * Sorts linked issue keys into defect links and other links; shared by the tree and streaming paths.
+     */
+    private static final class LinkCollector {
+        private final List<String> defectKeys = new ArrayList<>();
+        private final List<String> otherKeys = new ArrayList<>();
+
+        void add(String linkType, String key) {
+            if (key == null) {
+                return;
+            }
+            boolean isDefectLink = linkType != null &&
+                                 (linkType.toLowerCase().contains("defect") ||
+                                  linkType.toLowerCase().contains("bug") ||
+                                  linkType.toLowerCase().contains("issue"));
+            if (isDefectLink) {
+                defectKeys.add(key);
+            } else {
+                otherKeys.add(key);
+            }
         }
 
-        return result;
+        String[] result() {
+            String[] result = {"", ""}; // [defectKey, otherLinks]
+
+            // Take first defect key found (if any)
+            if (!defectKeys.isEmpty()) {
+                result[0] = defectKeys.get(0);
+            }
+
+            // Join other linked issues
+            if (!otherKeys.isEmpty()) {
+                result[1] = String.join(", ", otherKeys);
+            }
+
+            return result;
+        }
     }
 }
@@ -0,0 +1,87 @@
+package com.oracleinternship;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fills in the Defect Jira's status, priority, resolution and fix versions, and the status of every other
+ * linked issue. The distinct keys across the whole result set are fetched in bulk through
+ * {@link JiraApiClient#searchLinkedIssues}, and every answer is remembered, so the cost follows the number
+ * of distinct linked issues rather than the number of links. Share one instance between exports (as the
+ * batch runner does) to reuse what earlier exports already fetched.
+ */
+public class LinkedIssueEnricher {
+
+    private final JiraApiClient jiraClient;
+    private final Map<String, Ticket> linkedIssues = new ConcurrentHashMap<>();
+    // Keys Jira didn't return (deleted, moved or not visible), so they aren't asked for again
+    private final Set<String> unavailable = ConcurrentHashMap.newKeySet();
+
+    public LinkedIssueEnricher(JiraApiClient jiraClient) {
+        this.jiraClient = jiraClient;
+    }
+
+    public void enrich(List<Ticket> tickets, ExportListener listener) throws IOException, InterruptedException {
+        Set<String> wanted = new LinkedHashSet<>();
+        for (Ticket ticket : tickets) {
+            addKey(wanted, ticket.getDefectJira());
+            for (String key : splitKeys(ticket.getLinkedIssues())) {
+                addKey(wanted, key);
+            }
+        }
+
+        if (!wanted.isEmpty()) {
+            listener.onMessage("Fetching " + wanted.size() + " linked issues...");
+            // The enrichment pass shouldn't move the fetch progress of the export itself. Issues are kept under
+            // the key asked for, so a moved defect is still found by the key the ticket links to
+            List<String> missing = jiraClient.searchLinkedIssues(new ArrayList<>(wanted),
+                    (key, issue) -> linkedIssues.put(key, issue), listener.withoutProgress());
+            unavailable.addAll(missing);
+            if (!missing.isEmpty()) {
+                listener.onMessage("Linked issues not found or not visible (" + missing.size() + "): " + String.join(", ", missing));
+            }
+        }
+
+        for (Ticket ticket : tickets) {
+            Ticket defect = lookup(ticket.getDefectJira());
+            ticket.setDefectStatus(defect != null ? defect.getStatus() : "");
+            ticket.setDefectPriority(defect != null ? defect.getPriority() : "");
+            ticket.setDefectResolution(defect != null ? defect.getResolution() : "");
+            ticket.setDefectFixVersions(defect != null ? defect.getFixVersions() : "");
+
+            List<String> statuses = new ArrayList<>();
+            for (String key : splitKeys(ticket.getLinkedIssues())) {
+                Ticket linked = lookup(key);
+                statuses.add(key + ": " + (linked != null ? linked.getStatus() : "?"));
+            }
+            ticket.setLinkedIssuesStatus(String.join(", ", statuses));
+        }
+    }
+
+    private void addKey(Set<String> wanted, String key) {
+        if (key != null && !key.isBlank() && !linkedIssues.containsKey(key) && !unavailable.contains(key)) {
+            wanted.add(key);
+        }
+    }
+
+    private Ticket lookup(String key) {
+        return key != null && !key.isBlank() ? linkedIssues.get(key) : null;
+    }
+
+    private static List<String> splitKeys(String keys) {
+        List<String> result = new ArrayList<>();
+        if (keys != null) {
+            for (String key : keys.split(",")) {
+                if (!key.isBlank()) {
+                    result.add(key.trim());
+                }
+            }
+        }
+        return result;
+    }
+}
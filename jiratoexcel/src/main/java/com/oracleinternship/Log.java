@@ -0,0 +1,191 @@
+package com.oracleinternship;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.http.HttpHeaders;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Levelled diagnostic logging to stderr. Callers only check the level and queue the record; one daemon
+ * thread formats, redacts and prints, so request threads never wait on the console. The queue is a
+ * bounded ring: while the writer is behind, new records are dropped and counted rather than blocking.
+ *
+ * <p>DEBUG is off unless switched on with {@link #setLevel} (the UI checkbox or --debug), or from the
+ * start with {@code -Djiratoexcel.log=debug}. {@link HttpHeaders} arguments are printed with their
+ * credential headers redacted, and Bearer/Basic credentials are masked in every message.
+ */
+public final class Log {
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    private static final int CAPACITY = 8192;
+    private static final int BATCH = 512;
+    private static final Set<String> SENSITIVE_HEADERS = Set.of("authorization", "proxy-authorization", "cookie", "set-cookie");
+    private static final Pattern CREDENTIALS = Pattern.compile("(?i)\\b(Bearer|Basic)\\s+[^\\s,;\"\\]]+");
+    private static final String REDACTED = "<redacted>";
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static final BlockingQueue<Entry> QUEUE = new ArrayBlockingQueue<>(CAPACITY);
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static volatile Level level = initialLevel();
+
+    static {
+        Thread.ofPlatform().daemon().name("log-writer").start(Log::drain);
+        // Whatever is still queued when the JVM exits is printed rather than lost
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            List<Entry> rest = new ArrayList<>();
+            QUEUE.drainTo(rest);
+            write(rest);
+        }, "log-flush"));
+    }
+
+    private record Entry(long millis, Level level, String logger, String thread, String format, Object[] args, Throwable error) {
+    }
+
+    private final String name;
+
+    private Log(String name) {
+        this.name = name;
+    }
+
+    public static Log get(Class<?> owner) {
+        return new Log(owner.getSimpleName());
+    }
+
+    private static Level initialLevel() {
+        String configured = System.getProperty("jiratoexcel.log", "info");
+        try {
+            return Level.valueOf(configured.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    public static Level level() {
+        return level;
+    }
+
+    /** Takes effect immediately, for every logger. */
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    public static boolean isEnabled(Level candidate) {
+        return candidate.compareTo(level) >= 0;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    /** Arguments are {@link String#format} arguments, formatted on the writer thread. */
+    public void debug(String format, Object... args) {
+        log(Level.DEBUG, format, args, null);
+    }
+
+    public void info(String format, Object... args) {
+        log(Level.INFO, format, args, null);
+    }
+
+    public void warn(String format, Object... args) {
+        log(Level.WARN, format, args, null);
+    }
+
+    public void error(String message, Throwable error) {
+        log(Level.ERROR, message, null, error);
+    }
+
+    private void log(Level recordLevel, String format, Object[] args, Throwable error) {
+        if (!isEnabled(recordLevel)) {
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), recordLevel, name, Thread.currentThread().getName(), format, args, error);
+        if (!QUEUE.offer(entry)) {
+            DROPPED.incrementAndGet();
+        }
+    }
+
+    private static void drain() {
+        List<Entry> batch = new ArrayList<>(BATCH);
+        while (true) {
+            try {
+                batch.add(QUEUE.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            QUEUE.drainTo(batch, BATCH - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    // Synchronized so the shutdown flush can't interleave with a batch in progress
+    private static synchronized void write(List<Entry> batch) {
+        StringBuilder text = new StringBuilder();
+        long dropped = DROPPED.getAndSet(0);
+        if (dropped > 0) {
+            text.append("(").append(dropped).append(" log records dropped while the writer was behind)").append(System.lineSeparator());
+        }
+        for (Entry entry : batch) {
+            text.append(TIME.format(Instant.ofEpochMilli(entry.millis())))
+                    .append(' ').append(String.format("%-5s", entry.level()))
+                    .append(" [").append(entry.thread()).append("] ")
+                    .append(entry.logger()).append(": ")
+                    .append(redact(format(entry)))
+                    .append(System.lineSeparator());
+            if (entry.error() != null) {
+                StringWriter trace = new StringWriter();
+                entry.error().printStackTrace(new PrintWriter(trace));
+                text.append(redact(trace.toString()));
+            }
+        }
+        if (!text.isEmpty()) {
+            System.err.print(text);
+            System.err.flush();
+        }
+    }
+
+    private static String format(Entry entry) {
+        Object[] args = entry.args();
+        if (args == null || args.length == 0) {
+            return entry.format();
+        }
+        Object[] printable = args.clone();
+        for (int i = 0; i < printable.length; i++) {
+            if (printable[i] instanceof HttpHeaders headers) {
+                printable[i] = redact(headers);
+            }
+        }
+        try {
+            return String.format(Locale.ROOT, entry.format(), printable);
+        } catch (IllegalFormatException e) {
+            return entry.format() + " " + Arrays.toString(printable);
+        }
+    }
+
+    /** The headers one per line as "name: values", with credential headers replaced by {@value #REDACTED}. */
+    static String redact(HttpHeaders headers) {
+        StringBuilder text = new StringBuilder();
+        headers.map().forEach((header, values) -> text.append(System.lineSeparator()).append("    ").append(header).append(": ")
+                .append(SENSITIVE_HEADERS.contains(header.toLowerCase(Locale.ROOT)) ? REDACTED : String.join(", ", values)));
+        return text.toString();
+    }
+
+    static String redact(String message) {
+        return CREDENTIALS.matcher(message).replaceAll("$1 " + REDACTED);
+    }
+}
@@ -1,9 +1,281 @@
 package com.oracleinternship;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Entry point. Without arguments it starts the JavaFX UI; with arguments it runs a single export
+ * headlessly (for cron jobs and the like) without touching any JavaFX class.
+ */
 public class Main {
-        public static void main(String[] args) {
 
+    private static final String USAGE = """
+            Usage:
+              jiratoexcel                              start the UI
+              jiratoexcel --url <jira url> [options]   export without the UI
+
+            Options:
+              --url <url>             Jira base URL (required)
+              --token-env <name>      environment variable holding the personal access token (default JIRA_PAT)
+              --from <yyyy-mm-dd>     start of the created/resolved date range
+              --to <yyyy-mm-dd>       end of the date range
+              --project <key>         project key (default: all projects)
+              --assignee <name>       only tickets assigned to this user
+              --issue-types <a,b,c>   comma separated issue types (default: Issue Investigation)
+              --issue <key,key,...>   export these tickets instead of a date range (one sheet for all of them)
+              --issue-file <file>     like --issue, with the keys read from a file (commas, spaces or one per line)
+              --cache-ttl <seconds>   serve a cached single ticket without asking Jira for this long (default 60)
+              --no-cache              don't read or write the single ticket cache
+              --out <dir>             export directory (default: test)
+              --format <name>         Excel (default), CSV or NDJSON
+              --columns <file>        column spec to export with (default: ~/.jiratoexcel/columns.json,
+                                      else the built-in layout; see ColumnPlan for the format)
+              --update                add a sheet to an existing workbook instead of replacing it; for CSV
+                                      and NDJSON, add the rows to the end of the file
+              --changes               with --update, also add a sheet of what changed since the last export
+              --changes-only          with --update, add only the sheet of changes since the last export
+              --incremental           only fetch tickets updated since the last export of this scope
+              --jobs <file>           run every export listed in a JSON job file concurrently
+                                      (see BatchRunner for the format; other options but --record
+                                      and --debug are ignored)
+              --record <file.jfr>     record the export with Flight Recorder, for JDK Mission Control
+              --debug                 log every request and response to stderr (credentials redacted)
+              --help                  show this message
+            """;
+
+    private static final List<String> FLAGS = List.of("--update", "--changes", "--changes-only", "--incremental", "--no-cache", "--debug", "--help");
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            launchGui(args);
+            return;
+        }
+        System.exit(runCli(args));
+    }
+
+    // Kept in its own method so JavaFX classes are only loaded when the UI is actually wanted
+    private static void launchGui(String[] args) {
         MainApp.launch(MainApp.class, args);
+    }
+
+    private static int runCli(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        Map<String, String> options;
+        try {
+            options = parseOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            return 2;
+        }
+        if (options.containsKey("--help")) {
+            System.out.print(USAGE);
+            return 0;
+        }
+        if (options.containsKey("--debug")) {
+            Log.setLevel(Log.Level.DEBUG);
+        }
+        if (options.containsKey("--jobs")) {
+            return recording(options.get("--record"), () -> runJobs(Paths.get(options.get("--jobs"))));
+        }
+        return recording(options.get("--record"), () -> runExport(options));
+    }
+
+    // Runs the export inside a Flight Recorder recording written to recordFile, or as is when there is none
+    private static int recording(String recordFile, IntSupplier export) {
+        if (recordFile == null) {
+            return export.getAsInt();
+        }
+        ExportRecording recording;
+        try {
+            recording = ExportRecording.start(Paths.get(recordFile));
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Could not start a flight recording: " + e.getMessage());
+            return 1;
+        }
+        try (recording) {
+            return export.getAsInt();
+        } finally {
+            System.out.println("Flight recording written to " + recording.file());
+        }
+    }
+
+    private static int runExport(Map<String, String> options) {
+        String jiraUrl = options.get("--url");
+        if (jiraUrl == null) {
+            System.err.println("--url is required");
+            System.err.print(USAGE);
+            return 2;
+        }
+        String tokenEnv = options.getOrDefault("--token-env", "JIRA_PAT");
+        String token = System.getenv(tokenEnv);
+        if (token == null || token.isBlank()) {
+            System.err.println("Environment variable " + tokenEnv + " does not hold a personal access token");
+            return 2;
+        }
+
+        Path exportDirectory = Paths.get(options.getOrDefault("--out", "test"));
+        boolean updateExisting = options.containsKey("--update");
+        String format = options.getOrDefault("--format", "Excel");
+
+        // Let Ctrl-C cancel the export cleanly so no partial workbook is left behind
+        Thread exportThread = Thread.currentThread();
+        Thread shutdownHook = new Thread(() -> {
+            exportThread.interrupt();
+            try {
+                exportThread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        try {
+            JiraApiClient jiraClient = new JiraApiClient(jiraUrl, token);
+            if (options.containsKey("--columns")) {
+                jiraClient.setColumnPlan(ColumnPlan.load(Paths.get(options.get("--columns"))));
+            }
+            TicketExporter exporter = new TicketExporter(jiraClient, jiraUrl, new ConsoleListener(""));
+            if (options.containsKey("--changes-only")) {
+                exporter.setChangeSheet(ExcelWriter.ChangeSheet.ONLY);
+            } else if (options.containsKey("--changes")) {
+                exporter.setChangeSheet(ExcelWriter.ChangeSheet.ADD);
+            }
+
+            Path written;
+            List<String> issueKeys = parseIssueKeys(options);
+            if (!issueKeys.isEmpty()) {
+                if (!options.containsKey("--no-cache")) {
+                    jiraClient.setIssueCache(new IssueResponseCache(IssueResponseCache.defaultDirectory(),
+                            IssueResponseCache.DEFAULT_MAX_BYTES, parseTtl(options)));
+                }
+                written = exporter.exportTicketList(issueKeys, exportDirectory, updateExisting, format);
+            } else {
+                LocalDate startDate = parseDate(options, "--from");
+                LocalDate endDate = parseDate(options, "--to");
+                List<String> issueTypes = parseList(options.getOrDefault("--issue-types", "Issue Investigation"));
+                written = exporter.exportDateRange(startDate, endDate, options.get("--assignee"), options.get("--project"),
+                        issueTypes, exportDirectory, updateExisting, options.containsKey("--incremental"), format);
+            }
+            return written != null ? 0 : 1;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        } catch (InterruptedException e) {
+            System.err.println("Export cancelled.");
+            return 130;
+        } catch (Exception e) {
+            System.err.println("Export failed: " + (e.getMessage() != null ? e.getMessage() : e));
+            return 1;
+        } finally {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // Already shutting down
+            }
+        }
+    }
+
+    private static int runJobs(Path jobFilePath) {
+        BatchRunner.JobFile jobFile;
+        try {
+            jobFile = BatchRunner.loadJobFile(jobFilePath);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not read job file: " + e.getMessage());
+            return 2;
+        }
+        String token = System.getenv(jobFile.tokenEnv());
+        if (token == null || token.isBlank()) {
+            System.err.println("Environment variable " + jobFile.tokenEnv() + " does not hold a personal access token");
+            return 2;
+        }
+
+        // One client for every job, so maxConcurrentRequests is a limit for the whole run
+        JiraApiClient jiraClient = new JiraApiClient(jobFile.url(), token, jobFile.maxConcurrentRequests());
+        BatchRunner runner = new BatchRunner(jiraClient, jobFile.url(), jobFile.writerThreads());
+
+        long start = System.nanoTime();
+        try {
+            List<BatchRunner.JobResult> results = runner.run(jobFile.jobs());
+            BatchRunner.printSummary(results, (System.nanoTime() - start) / 1_000_000, System.out);
+            return results.stream().anyMatch(result -> "FAILED".equals(result.status())) ? 1 : 0;
+        } catch (InterruptedException e) {
+            System.err.println("Batch cancelled.");
+            return 130;
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (!name.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + name);
+            }
+            if (FLAGS.contains(name)) {
+                options.put(name, "true");
+            } else if (i + 1 < args.length) {
+                options.put(name, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+        }
+        return options;
+    }
+
+    private static LocalDate parseDate(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException(name + " is required for a date range export");
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date for " + name + ": " + value);
+        }
+    }
+
+    private static List<String> parseIssueKeys(Map<String, String> options) throws IOException {
+        List<String> keys = new ArrayList<>();
+        if (options.containsKey("--issue")) {
+            keys.addAll(TicketExporter.parseTicketKeys(options.get("--issue")));
+        }
+        if (options.containsKey("--issue-file")) {
+            keys.addAll(TicketExporter.parseTicketKeys(Files.readString(Paths.get(options.get("--issue-file")))));
+        }
+        return keys;
+    }
+
+    private static Duration parseTtl(Map<String, String> options) {
+        String value = options.get("--cache-ttl");
+        if (value == null) {
+            return IssueResponseCache.DEFAULT_TTL;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number of seconds for --cache-ttl: " + value);
+        }
+    }
 
+    private static List<String> parseList(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.isBlank()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
     }
 }
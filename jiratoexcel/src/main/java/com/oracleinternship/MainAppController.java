@@ -1,7 +1,9 @@
 package com.oracleinternship;
 
 import javafx.animation.FadeTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
@@ -9,20 +11,21 @@ import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
 import javafx.scene.control.PasswordField;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.GridPane;
-import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.StackPane;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 public class MainAppController {
@@ -72,6 +75,9 @@ public class MainAppController {
     @FXML
     private ComboBox<String> projectComboBox;
 
+    @FXML
+    private ComboBox<String> formatComboBox;
+
     @FXML
     private TextField newProjectField;
 
@@ -91,7 +97,9 @@ public class MainAppController {
     private StackPane statusContainer;
 
     @FXML
-    private TextArea statusArea;
+    private ListView<String> statusList;
+
+    private StatusLog status;
 
     @FXML
     private DatePicker datePicker1, datePicker2;
@@ -102,8 +110,34 @@ public class MainAppController {
     @FXML
     private CheckBox updateExcelCheckBox;
 
+    @FXML
+    private CheckBox changeSheetCheckBox;
+
+    @FXML
+    private CheckBox incrementalSyncCheckBox;
+
+    @FXML
+    private CheckBox recordCheckBox;
+
+    @FXML
+    private CheckBox debugLoggingCheckBox;
+
+    @FXML
+    private Button cancelButton;
+
+    @FXML
+    private ProgressBar exportProgressBar;
+
+    @FXML
+    private Label exportProgressLabel;
+
     private Stage primaryStage;
+
+    // Shared by every single ticket export so repeated lookups during triage are served or revalidated locally
+    private final IssueResponseCache issueCache = new IssueResponseCache(IssueResponseCache.defaultDirectory(),
+            IssueResponseCache.DEFAULT_MAX_BYTES, IssueResponseCache.DEFAULT_TTL);
     private String exportDirectory = "test"; // Default export directory
+    private Task<Path> runningExport; // Export in progress, if any
 
     public void setPrimaryStage(Stage primaryStage) {
         this.primaryStage = primaryStage;
@@ -112,12 +146,13 @@ public class MainAppController {
     @FXML
     private void initialize() {
         // Initialize method called after FXML loading
-        statusArea.appendText("Application started successfully!\n");
-        statusArea.appendText("Ready to process Jira issues.\n");
-        statusArea.appendText("⚠️ For Large Datasets, processing may take longer.\n");
-        statusArea.appendText("⚠️ The application may appear unresponsive during this time. \n");
+        status = new StatusLog(statusList, StatusLog.DEFAULT_CAPACITY);
+        status.append("Application started successfully!");
+        status.append("Ready to process Jira issues.");
+        status.append("⚠️ For Large Datasets, processing may take longer; progress is shown below the buttons.");
         issueKeyField.setDisable(true); // Disable issue key field by default
         issueKeyLabel.setDisable(true); // Disable issue key label by default
+        debugLoggingCheckBox.setSelected(Log.isEnabled(Log.Level.DEBUG)); // -Djiratoexcel.log=debug
 
         // Initialize Project ComboBox with default projects
         if (projectComboBox != null) {
@@ -127,6 +162,9 @@ public class MainAppController {
             projectComboBox.setValue("DTVIEWER"); // Set default selection
         }
 
+        formatComboBox.setItems(FXCollections.observableArrayList("Excel", "CSV", "NDJSON"));
+        formatComboBox.setValue("Excel");
+
         // Initialize Issue Types CheckBoxes with default issue types in a dynamic grid
         // layout
         if (issueTypesContainer != null) {
@@ -161,13 +199,13 @@ public class MainAppController {
             // Check if project already exists
             if (!projectComboBox.getItems().contains(newProject)) {
                 projectComboBox.getItems().add(newProject);
-                statusArea.appendText("Added project: " + newProject + "\n");
+                status.append("Added project: " + newProject);
                 newProjectField.clear();
             } else {
-                statusArea.appendText("Project '" + newProject + "' already exists.\n");
+                status.append("Project '" + newProject + "' already exists.");
             }
         } else {
-            statusArea.appendText("Please enter a project key.\n");
+            status.append("Please enter a project key.");
         }
     }
 
@@ -192,13 +230,13 @@ public class MainAppController {
                 // Rearrange all checkboxes in optimal grid layout
                 rearrangeCheckboxesInGrid();
 
-                statusArea.appendText("Added issue type: " + newIssueType + "\n");
+                status.append("Added issue type: " + newIssueType);
                 newIssueTypeField.clear();
             } else {
-                statusArea.appendText("Issue type '" + newIssueType + "' already exists.\n");
+                status.append("Issue type '" + newIssueType + "' already exists.");
             }
         } else {
-            statusArea.appendText("Please enter an issue type.\n");
+            status.append("Please enter an issue type.");
         }
     }
 
@@ -239,128 +277,205 @@ public class MainAppController {
 
     @FXML
     private void exportToExcel() {
-        try {
-            // Check if single ticket mode is selected
-            if (specificTicketCheck.isSelected()) {
-                String ticketKey = getIssueKey();
-                if (ticketKey != null && !ticketKey.trim().isEmpty()) {
-                    exportSingleTicket("Excel");
-                } else {
-                    statusArea.appendText("Please enter a ticket key when using single ticket mode.\n");
-                }
+        if (runningExport != null) {
+            status.append("An export is already running.");
+            return;
+        }
+
+        // Read every input here on the FX thread; the export itself runs in the background
+        String jiraUrl = getJiraUrl();
+        String token = getPersonalAccessToken();
+        Path exportDir = Paths.get(exportDirectory);
+        boolean updateExisting = updateExcelCheckBox.isSelected();
+        String format = formatComboBox.getValue();
+        ExcelWriter.ChangeSheet changeSheet = updateExisting && changeSheetCheckBox.isSelected()
+                ? ExcelWriter.ChangeSheet.ADD : ExcelWriter.ChangeSheet.OFF;
+        Path recordFile = recordCheckBox.isSelected()
+                ? exportDir.resolve("export_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".jfr")
+                : null;
+
+        // Check if single ticket mode is selected
+        if (specificTicketCheck.isSelected()) {
+            // The field takes one key or a whole list separated by commas or spaces
+            List<String> ticketKeys = TicketExporter.parseTicketKeys(getIssueKey() != null ? getIssueKey() : "");
+            if (!ticketKeys.isEmpty()) {
+                JiraApiClient jiraClient = new JiraApiClient(jiraUrl, token);
+                jiraClient.setIssueCache(issueCache);
+                startExport(jiraClient, jiraUrl, recordFile, exporter -> {
+                    exporter.setChangeSheet(changeSheet);
+                    return exporter.exportTicketList(ticketKeys, exportDir, updateExisting, format);
+                });
             } else {
-                // Use date range mode
-                if (startDate != null && endDate != null) {
-                    exportTicketsByDateRange("Excel");
-                } else {
-                    statusArea.appendText(
-                            "Please select a date range first or check 'Grab Specific Ticket?' for single ticket mode.\n");
-                }
+                status.append("Please enter a ticket key when using single ticket mode.");
+            }
+        } else {
+            // Use date range mode
+            if (startDate != null && endDate != null) {
+                LocalDate start = startDate;
+                LocalDate end = endDate;
+                String assignee = getAssignee();
+                String project = getSelectedProject();
+                List<String> selectedIssueTypes = getSelectedIssueTypes();
+                boolean incrementalSync = incrementalSyncCheckBox.isSelected();
+                startExport(new JiraApiClient(jiraUrl, token), jiraUrl, recordFile, exporter -> {
+                    exporter.setChangeSheet(changeSheet);
+                    return exporter.exportDateRange(start, end, assignee, project, selectedIssueTypes,
+                            exportDir, updateExisting, incrementalSync, format);
+                });
+            } else {
+                status.append("Please select a date range first or check 'Grab Specific Ticket?' for single ticket mode.");
             }
-        } catch (Exception e) {
-            statusArea.appendText("Error exporting to Excel: " + e.getMessage() + "\n");
         }
     }
 
-    private void exportSingleTicket(String format) throws IOException, InterruptedException {
-        String ticketKey = getIssueKey();
-        statusArea.appendText("Fetching ticket: " + ticketKey + "\n");
-
-        JiraApiClient jiraClient = new JiraApiClient(getJiraUrl(), getPersonalAccessToken(), false);
-        String ticketResponse = jiraClient.getIssue(ticketKey);
-
-        JsonParser parser = new JsonParser(ticketResponse);
-        Ticket ticket = parser.parseSingleIssue();
+    // Takes effect straight away, for an export that is already running too
+    @FXML
+    private void debugLoggingToggled() {
+        Log.setLevel(debugLoggingCheckBox.isSelected() ? Log.Level.DEBUG : Log.Level.INFO);
+    }
 
-        if (ticket == null) {
-            statusArea.appendText("Failed to retrieve ticket: " + ticketKey + "\n");
-            return;
+    @FXML
+    private void cancelExport() {
+        if (runningExport != null) {
+            status.append("Cancelling export...");
+            cancelButton.setDisable(true);
+            runningExport.cancel(true);
         }
+    }
 
-        statusArea.appendText("Successfully retrieved ticket: " + ticketKey + "\n");
-
-        // Create a list with single ticket for ExcelWriter compatibility
-        List<Ticket> tickets = List.of(ticket);
-
-        // Ensure export directory exists
-        Path exportDir = Paths.get(exportDirectory);
-        try {
-            Files.createDirectories(exportDir);
-        } catch (IOException e) {
-            statusArea.appendText("Error creating export directory: " + e.getMessage() + "\n");
-        }
+    /**
+     * Runs an export on a virtual thread, streaming its progress into the progress bar and status area.
+     * With a {@code recordFile} the export runs inside a Flight Recorder recording saved there. The controls
+     * are only reset once that thread has exited, so a cancelled export has removed its partial file before
+     * another one can start.
+     */
+    private void startExport(JiraApiClient jiraClient, String jiraUrl, Path recordFile, ExportAction action) {
+        ExportTask task = new ExportTask(jiraClient, jiraUrl, recordFile, action);
+        runningExport = task;
+
+        exportProgressBar.progressProperty().bind(task.progressProperty());
+        exportProgressLabel.textProperty().bind(task.messageProperty());
+        excelButton.setDisable(true);
+        cancelButton.setDisable(false);
+
+        task.setOnFailed(event -> {
+            Throwable error = task.getException();
+            status.append("Export failed: " + (error != null ? error.getMessage() : "unknown error"));
+        });
 
-        String fileName = "ticket_" + ticketKey + (format.equals("CSV") ? ".csv" : ".xlsx");
-        String filePath = exportDirectory + File.separator + fileName;
+        // onCancelled fires as soon as cancel() is called, while the worker may still be unwinding
+        Thread.ofVirtual().name("jira-export").start(() -> {
+            try {
+                task.run();
+            } finally {
+                Platform.runLater(() -> {
+                    if (task.isCancelled()) {
+                        status.append("Export cancelled; no partial file was kept.");
+                    }
+                    finishExport();
+                });
+            }
+        });
+    }
 
-        if (format.equals("Excel")) {
-            ExcelWriter.writeTickets(tickets, filePath, getJiraUrl(), "Single Ticket", updateExcelCheckBox.isSelected());
-            statusArea.appendText("Exported ticket to: " + filePath + "\n");
-        } else {
-            // TODO: Implement CSV export for single ticket
-            statusArea.appendText("CSV export not yet implemented.\n");
-        }
+    private void finishExport() {
+        runningExport = null;
+        exportProgressBar.progressProperty().unbind();
+        exportProgressLabel.textProperty().unbind();
+        exportProgressBar.setProgress(0);
+        exportProgressLabel.setText("");
+        excelButton.setDisable(false);
+        cancelButton.setDisable(true);
     }
 
-    private void exportTicketsByDateRange(String format) throws IOException, InterruptedException {
-        String assignee = getAssignee();
-        String project = getSelectedProject();
+    // Appends a status line from any thread
+    private void appendStatus(String message) {
+        status.append(message);
+    }
 
-        StringBuilder searchMessage = new StringBuilder();
-        searchMessage.append("Searching for tickets from ").append(startDate).append(" to ").append(endDate);
+    @FunctionalInterface
+    private interface ExportAction {
+        Path run(TicketExporter exporter) throws Exception;
+    }
 
-        if (project != null && !project.trim().isEmpty() && !"All Projects".equals(project)) {
-            searchMessage.append(" in project '").append(project).append("'");
+    /**
+     * Background export that turns pipeline callbacks into Task progress; Task coalesces the updates
+     * so a burst of pages doesn't flood the FX thread.
+     */
+    private final class ExportTask extends Task<Path> implements ExportListener {
+        // Share of the progress bar given to fetching; the rest is for writing rows
+        private static final double FETCH_SHARE = 0.8;
+
+        private final JiraApiClient jiraClient;
+        private final String jiraUrl;
+        private final Path recordFile;
+        private final ExportAction action;
+        private long fetchStartNanos;
+        private long writeStartNanos;
+
+        ExportTask(JiraApiClient jiraClient, String jiraUrl, Path recordFile, ExportAction action) {
+            this.jiraClient = jiraClient;
+            this.jiraUrl = jiraUrl;
+            this.recordFile = recordFile;
+            this.action = action;
         }
 
-        if (assignee != null && !assignee.trim().isEmpty()) {
-            searchMessage.append(" assigned to '").append(assignee).append("'");
+        @Override
+        protected Path call() throws Exception {
+            if (recordFile == null) {
+                return export();
+            }
+            ExportRecording recording = ExportRecording.start(recordFile);
+            try (recording) {
+                return export();
+            } finally {
+                appendStatus("Flight recording written to " + recording.file());
+            }
         }
 
-        searchMessage.append("...\n");
-        statusArea.appendText(searchMessage.toString());
-
-        List<String> selectedIssueTypes = getSelectedIssueTypes();
-        JiraApiClient jiraClient = new JiraApiClient(getJiraUrl(), getPersonalAccessToken(), true);
-        String searchResponse = jiraClient.searchIssues(startDate, endDate, assignee, project, selectedIssueTypes);
+        private Path export() throws Exception {
+            fetchStartNanos = System.nanoTime();
+            return action.run(new TicketExporter(jiraClient, jiraUrl, this));
+        }
 
-        JsonParser parser = new JsonParser(searchResponse);
-        List<Ticket> tickets = parser.parseSearchResults();
+        @Override
+        public void onMessage(String message) {
+            appendStatus(message);
+        }
 
-        statusArea.appendText("Found " + tickets.size() + " tickets in the date range.\n");
+        @Override
+        public void onPageFetched(int pagesFetched, int totalPages, int ticketsFetched, int totalTickets) {
+            double rate = ratePerSecond(ticketsFetched, fetchStartNanos);
+            updateMessage(String.format("Fetched page %d/%d - %d/%d tickets - %.0f tickets/s - ETA %s",
+                    pagesFetched, totalPages, ticketsFetched, totalTickets, rate, eta(totalTickets - ticketsFetched, rate)));
+            updateProgress(FETCH_SHARE * pagesFetched / Math.max(1, totalPages), 1.0);
+        }
 
-        if (tickets.isEmpty()) {
-            String noTicketsMessage = assignee != null && !assignee.trim().isEmpty()
-                    ? "No tickets found for the selected date range and assignee.\n"
-                    : "No tickets found for the selected date range.\n";
-            statusArea.appendText(noTicketsMessage);
-            return;
+        @Override
+        public void onRowsWritten(int rowsWritten, int totalRows) {
+            if (writeStartNanos == 0) {
+                writeStartNanos = System.nanoTime();
+            }
+            double rate = ratePerSecond(rowsWritten, writeStartNanos);
+            updateMessage(String.format("Wrote %d/%d rows - %.0f rows/s - ETA %s",
+                    rowsWritten, totalRows, rate, eta(totalRows - rowsWritten, rate)));
+            updateProgress(FETCH_SHARE + (1 - FETCH_SHARE) * rowsWritten / Math.max(1, totalRows), 1.0);
         }
 
-        // Ensure export directory exists
-        Path exportDir = Paths.get(exportDirectory);
-        try {
-            Files.createDirectories(exportDir);
-        } catch (IOException e) {
-            statusArea.appendText("Error creating export directory: " + e.getMessage() + "\n");
+        private static double ratePerSecond(int count, long sinceNanos) {
+            double seconds = (System.nanoTime() - sinceNanos) / 1e9;
+            return seconds > 0 ? count / seconds : 0;
         }
 
-        String assigneeSuffix = assignee != null && !assignee.trim().isEmpty()
-                ? "_assigned_to_" + assignee.replace(" ", "_")
-                : "";
-        String projectSuffix = project != null && !project.trim().isEmpty() && !"All Projects".equals(project)
-                ? "_project_" + project
-                : "";
-        String fileName = "tickets_" + startDate + "_to_" + endDate + projectSuffix + assigneeSuffix
-                + (format.equals("CSV") ? ".csv" : ".xlsx");
-        String filePath = exportDirectory + File.separator + fileName;
-
-        if (format.equals("Excel")) {
-            ExcelWriter.writeTickets(tickets, filePath, getJiraUrl(), startDate + " to " + endDate, updateExcelCheckBox.isSelected());
-            statusArea.appendText("Exported " + tickets.size() + " tickets to: " + filePath + "\n");
-        } else {
-            // TODO: Implement CSV export for multiple tickets
-            statusArea.appendText("CSV export for multiple tickets not yet implemented.\n");
+        private static String eta(int remaining, double ratePerSecond) {
+            if (remaining <= 0) {
+                return "0s";
+            }
+            if (ratePerSecond <= 0) {
+                return "--";
+            }
+            long seconds = (long) Math.ceil(remaining / ratePerSecond);
+            return seconds >= 60 ? (seconds / 60) + "m " + (seconds % 60) + "s" : seconds + "s";
         }
     }
 
@@ -373,13 +488,13 @@ public class MainAppController {
         File selectedDirectory = directoryChooser.showDialog(primaryStage);
         if (selectedDirectory != null) {
             exportDirectory = selectedDirectory.getAbsolutePath();
-            statusArea.appendText("Export directory set to: " + exportDirectory + "\n");
+            status.append("Export directory set to: " + exportDirectory);
         }
     }
 
     @FXML
     private void clearStatus() {
-        statusArea.clear();
+        status.clear();
 
         // Create a temporary label for the fading message
         Label fadeLabel = new Label("Status cleared");
@@ -410,10 +525,10 @@ public class MainAppController {
     private void toggleFullscreen() {
         if (primaryStage.isFullScreen()) {
             primaryStage.setFullScreen(false);
-            statusArea.appendText("Exited fullscreen mode.\n");
+            status.append("Exited fullscreen mode.");
         } else {
             primaryStage.setFullScreen(true);
-            statusArea.appendText("Entered fullscreen mode.\n");
+            status.append("Entered fullscreen mode.");
         }
     }
 
@@ -450,9 +565,9 @@ public class MainAppController {
     public void specificBoxToggled() {
         boolean isSpecific = specificTicketCheck.isSelected();
         if (isSpecific) {
-            statusArea.appendText("Specific Ticket mode enabled.\n");
+            status.append("Specific Ticket mode enabled.");
         } else {
-            statusArea.appendText("Date Range mode enabled.\n");
+            status.append("Date Range mode enabled.");
         }
         issueKeyField.setDisable(!isSpecific);
         datePicker1.setDisable(isSpecific);
@@ -468,17 +583,19 @@ public class MainAppController {
         dateRangeLabel.setDisable(isSpecific);
         projectLabel.setDisable(isSpecific);
         assigneeLabel.setDisable(isSpecific);
+        incrementalSyncCheckBox.setDisable(isSpecific);
         issueKeyLabel.setDisable(!isSpecific);
     }
 
     @FXML
     public void updateCheckBoxSelected() {
+        changeSheetCheckBox.setDisable(!updateExcelCheckBox.isSelected());
         if (updateExcelCheckBox.isSelected()) {
-            statusArea.appendText("Update Existing Excel mode enabled.\n");
-            statusArea.appendText("This creates a new sheet in the existing workbook over the same date range.\n");
+            status.append("Update Existing Excel mode enabled.");
+            status.append("This creates a new sheet in the existing workbook over the same date range.");
         } else {
-            statusArea.appendText("Create New Excel mode enabled.\n");
-            statusArea.appendText("This creates a new workbook, overwriting any existing file over the same date range..\n");
+            status.append("Create New Excel mode enabled.");
+            status.append("This creates a new workbook, overwriting any existing file over the same date range..");
 
         }
     }
@@ -498,7 +615,7 @@ public class MainAppController {
         if (start != null && end != null) {
             this.startDate = start;
             this.endDate = end;
-            statusArea.appendText("Date range set: " + start + " to " + end + "\n");
+            status.append("Date range set: " + start + " to " + end);
         }
     }
 
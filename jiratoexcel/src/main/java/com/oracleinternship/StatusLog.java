@@ -0,0 +1,95 @@
+package com.oracleinternship;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.ListView;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+import javafx.util.Duration;
+
+/**
+ * The status area: the last {@code capacity} lines in a ListView, which only lays out the rows on screen.
+ * Lines can be appended from any thread; they are queued and handed to the FX thread in one batch per
+ * frame, so a burst of messages costs one list update rather than one per line. Both the queue and the
+ * list drop their oldest lines past {@code capacity}, so memory stays flat however long the app runs.
+ */
+final class StatusLog {
+
+    static final int DEFAULT_CAPACITY = 5000;
+    private static final Duration FRAME = Duration.millis(100);
+
+    private final ListView<String> view;
+    private final int capacity;
+    private final ObservableList<String> lines = FXCollections.observableArrayList();
+    // Guarded by itself; filled by any thread, emptied on the FX thread
+    private final Deque<String> pending = new ArrayDeque<>();
+
+    StatusLog(ListView<String> view, int capacity) {
+        this.view = view;
+        this.capacity = capacity;
+        view.setItems(lines);
+        view.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        // Lines can't be selected as text like in a TextArea, so Ctrl+C copies the selected lines instead
+        view.setOnKeyPressed(event -> {
+            if (event.isShortcutDown() && event.getCode() == KeyCode.C) {
+                ClipboardContent content = new ClipboardContent();
+                content.putString(String.join(System.lineSeparator(), view.getSelectionModel().getSelectedItems()));
+                Clipboard.getSystemClipboard().setContent(content);
+            }
+        });
+
+        Timeline flusher = new Timeline(new KeyFrame(FRAME, event -> flush()));
+        flusher.setCycleCount(Animation.INDEFINITE);
+        flusher.play();
+    }
+
+    /** Queues a message for the next frame; one line per line of the message. Safe from any thread. */
+    void append(String message) {
+        String[] split = message.split("\\R");
+        synchronized (pending) {
+            for (String line : split) {
+                pending.addLast(line);
+            }
+            while (pending.size() > capacity) {
+                pending.removeFirst();
+            }
+        }
+    }
+
+    /** Empties the log, including lines not shown yet. Call on the FX thread. */
+    void clear() {
+        synchronized (pending) {
+            pending.clear();
+        }
+        lines.clear();
+    }
+
+    private void flush() {
+        List<String> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+        // Keeps the newest line in view, unless lines are selected for reading or copying
+        boolean follow = view.getSelectionModel().isEmpty();
+        lines.addAll(batch);
+        if (lines.size() > capacity) {
+            lines.remove(0, lines.size() - capacity);
+        }
+        if (follow) {
+            view.scrollTo(lines.size() - 1);
+        }
+    }
+}
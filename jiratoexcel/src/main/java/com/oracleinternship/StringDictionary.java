@@ -0,0 +1,49 @@
+package com.oracleinternship;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps repeated strings (statuses, assignees, versions...) to small int codes and back, so every ticket
+ * shares one copy of each value. Code 0 is null. Codes are never released, which is fine for the
+ * low-cardinality fields this is used for.
+ */
+final class StringDictionary {
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[64];
+    private int size = 1;
+
+    int encode(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            String[] current = values;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+                values = current;
+            }
+            current[size] = value;
+            // Published after the array write, so whoever sees the code also sees the value
+            codes.put(value, size);
+            return size++;
+        }
+    }
+
+    String decode(int code) {
+        return values[code];
+    }
+
+    synchronized int size() {
+        return size - 1;
+    }
+}
@@ -1,9 +1,27 @@
 package com.oracleinternship;
 
+import java.util.HashMap;
+import java.util.Map;
+
 // POJO class for Ticket representation
+//
+// Kept compact for large histories: fields that repeat across tickets (status, assignee, issue type,
+// priority, versions...) are stored as StringDictionary codes, and timestamps as epoch millis plus the
+// UTC offset they came with. The getters and setters still speak Strings.
 public class Ticket {
-    private String id, assignee, status, summary, customfield_27101, issuetype, defectJira, resolutiondate, customfield_10704, priority, created, linkedIssues;
-    private String[] fields = {"id", "summary", "viewer_version", "waiting_time", "assignee", "current_status", "issue_type", "defect_jira","ticket_priority", "date_created", "date_resolved"};
+    private static final StringDictionary VALUES = new StringDictionary();
+    private static final String[] FIELDS = {"id", "summary", "viewer_version", "waiting_time", "assignee", "current_status", "issue_type", "defect_jira","ticket_priority", "date_created", "date_resolved"};
+
+    private String id, summary, customfield_27101, defectJira, linkedIssues, linkedIssuesStatus;
+    private int assignee, status, issuetype, customfield_10704, priority;
+    private long resolutiondate = JiraTimestamp.NONE, created = JiraTimestamp.NONE, updated = JiraTimestamp.NONE;
+    private short resolutiondateOffset, createdOffset, updatedOffset;
+    // Filled in for linked issues fetched by LinkedIssueEnricher
+    private int resolution, fixVersions;
+    // Filled in by LinkedIssueEnricher from the Defect Jira
+    private int defectStatus, defectPriority, defectResolution, defectFixVersions;
+    // Values of the extra field paths the column spec asks for, created on first use
+    private Map<String, String> extraFields;
 
     public String getId() {
         return id;
@@ -22,19 +40,19 @@ public class Ticket {
     }
 
     public String getStatus() {
-        return status;
+        return VALUES.decode(status);
     }
 
     public void setStatus(String status) {
-        this.status = status;
+        this.status = VALUES.encode(status);
     }
 
     public String getAssignee() {
-        return assignee;
+        return VALUES.decode(assignee);
     }
 
     public void setAssignee(String assignee) {
-        this.assignee = assignee;
+        this.assignee = VALUES.encode(assignee);
     }
 
     public String getCustomfield_27101() {
@@ -46,43 +64,84 @@ public class Ticket {
     }
 
     public String getIssuetype() {
-        return issuetype;
+        return VALUES.decode(issuetype);
     }
 
     public void setIssuetype(String issuetype) {
-        this.issuetype = issuetype;
+        this.issuetype = VALUES.encode(issuetype);
     }
 
     public String getResolutiondate() {
-        return resolutiondate;
+        return JiraTimestamp.format(resolutiondate, resolutiondateOffset);
     }
 
     public void setResolutiondate(String resolutiondate) {
-        this.resolutiondate = resolutiondate;
+        this.resolutiondate = JiraTimestamp.parseMillis(resolutiondate);
+        this.resolutiondateOffset = this.resolutiondate != JiraTimestamp.NONE ? JiraTimestamp.parseOffsetMinutes(resolutiondate) : 0;
+    }
+
+    /** Resolution date as epoch millis, or {@link JiraTimestamp#NONE}. */
+    public long getResolutiondateMillis() {
+        return resolutiondate;
+    }
+
+    /** Resolution date as an Excel date serial in the time zone Jira reported it in, or -1 if unset. */
+    public double getResolutiondateExcelDate() {
+        return JiraTimestamp.toExcelDate(resolutiondate, resolutiondateOffset);
     }
 
     public String getCustomfield_10704() {
-        return customfield_10704;
+        return VALUES.decode(customfield_10704);
     }
 
     public void setCustomfield_10704(String customfield_10704) {
-        this.customfield_10704 = customfield_10704;
+        this.customfield_10704 = VALUES.encode(customfield_10704);
     }
 
     public String getPriority() {
-        return priority;
+        return VALUES.decode(priority);
     }
 
     public void setPriority(String priority) {
-        this.priority = priority;
+        this.priority = VALUES.encode(priority);
     }
 
     public String getCreated() {
-        return created;
+        return JiraTimestamp.format(created, createdOffset);
     }
 
     public void setCreated(String created) {
-        this.created = created;
+        this.created = JiraTimestamp.parseMillis(created);
+        this.createdOffset = this.created != JiraTimestamp.NONE ? JiraTimestamp.parseOffsetMinutes(created) : 0;
+    }
+
+    /** Creation date as epoch millis, or {@link JiraTimestamp#NONE}. */
+    public long getCreatedMillis() {
+        return created;
+    }
+
+    /** Creation date as an Excel date serial in the time zone Jira reported it in, or -1 if unset. */
+    public double getCreatedExcelDate() {
+        return JiraTimestamp.toExcelDate(created, createdOffset);
+    }
+
+    public String getUpdated() {
+        return JiraTimestamp.format(updated, updatedOffset);
+    }
+
+    public void setUpdated(String updated) {
+        this.updated = JiraTimestamp.parseMillis(updated);
+        this.updatedOffset = this.updated != JiraTimestamp.NONE ? JiraTimestamp.parseOffsetMinutes(updated) : 0;
+    }
+
+    /** Last update as epoch millis, or {@link JiraTimestamp#NONE}. */
+    public long getUpdatedMillis() {
+        return updated;
+    }
+
+    /** Last update as an Excel date serial in the time zone Jira reported it in, or -1 if unset. */
+    public double getUpdatedExcelDate() {
+        return JiraTimestamp.toExcelDate(updated, updatedOffset);
     }
 
     public String getDefectJira() {
@@ -92,7 +151,7 @@ public class Ticket {
     public void setDefectJira(String defectJira) {
         this.defectJira = defectJira;
     }
-    
+
     public String getLinkedIssues() {
         return linkedIssues;
     }
@@ -101,18 +160,90 @@ public class Ticket {
         this.linkedIssues = linkedIssues;
     }
 
+    public String getResolution() {
+        return VALUES.decode(resolution);
+    }
+
+    public void setResolution(String resolution) {
+        this.resolution = VALUES.encode(resolution);
+    }
+
+    public String getFixVersions() {
+        return VALUES.decode(fixVersions);
+    }
+
+    public void setFixVersions(String fixVersions) {
+        this.fixVersions = VALUES.encode(fixVersions);
+    }
+
+    public String getDefectStatus() {
+        return VALUES.decode(defectStatus);
+    }
+
+    public void setDefectStatus(String defectStatus) {
+        this.defectStatus = VALUES.encode(defectStatus);
+    }
+
+    public String getDefectPriority() {
+        return VALUES.decode(defectPriority);
+    }
+
+    public void setDefectPriority(String defectPriority) {
+        this.defectPriority = VALUES.encode(defectPriority);
+    }
+
+    public String getDefectResolution() {
+        return VALUES.decode(defectResolution);
+    }
+
+    public void setDefectResolution(String defectResolution) {
+        this.defectResolution = VALUES.encode(defectResolution);
+    }
+
+    public String getDefectFixVersions() {
+        return VALUES.decode(defectFixVersions);
+    }
+
+    public void setDefectFixVersions(String defectFixVersions) {
+        this.defectFixVersions = VALUES.encode(defectFixVersions);
+    }
+
+    public String getLinkedIssuesStatus() {
+        return linkedIssuesStatus;
+    }
+
+    public void setLinkedIssuesStatus(String linkedIssuesStatus) {
+        this.linkedIssuesStatus = linkedIssuesStatus;
+    }
+
+    /** Value of a field path outside the built-in fields (see {@link ColumnPlan}), or null. */
+    public String getExtraField(String path) {
+        return extraFields != null ? extraFields.get(path) : null;
+    }
+
+    public void setExtraField(String path, String value) {
+        if (extraFields == null) {
+            extraFields = new HashMap<>(4);
+        }
+        extraFields.put(path, value);
+    }
+
+    Map<String, String> getExtraFields() {
+        return extraFields != null ? extraFields : Map.of();
+    }
+
     public String[] getFields() {
-        return fields;
+        return FIELDS.clone();
     }
 
     public String[] getFieldValues() {
         return new String[] {
-            id, summary, customfield_10704, customfield_27101, assignee, status, issuetype, priority, created, resolutiondate
+            id, summary, getCustomfield_10704(), customfield_27101, getAssignee(), getStatus(), getIssuetype(), getPriority(), getCreated(), getResolutiondate()
         };
     }
 
     public void printFields() {
-        for (String string : fields) {
+        for (String string : FIELDS) {
             System.out.println(string);
         }
     }
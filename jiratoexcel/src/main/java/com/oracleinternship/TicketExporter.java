@@ -0,0 +1,380 @@
+package com.oracleinternship;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fetch, parse and write pipeline behind an export, independent of any UI. Progress and status
+ * lines go to the {@link ExportListener}; interrupting the calling thread cancels the export. Each file
+ * written gets a {@code .report.json} next to it with the time spent in each phase (see {@link ExportMetrics}).
+ */
+public class TicketExporter {
+
+    // Tickets per linked issue lookup while streaming: one search page, so the batch adds no more memory
+    // than the page being decoded, and the enricher's cache keeps keys shared between batches from repeating
+    private static final int ENRICH_BATCH = 1000;
+
+    private final JiraApiClient jiraClient;
+    private final String jiraUrl;
+    private final ExportListener listener;
+    private final LinkedIssueEnricher enricher;
+    private final ExportMetrics metrics = new ExportMetrics();
+    private volatile ExcelWriter.ChangeSheet changeSheet = ExcelWriter.ChangeSheet.OFF;
+
+    public TicketExporter(JiraApiClient jiraClient, String jiraUrl, ExportListener listener) {
+        this(jiraClient, jiraUrl, listener, new LinkedIssueEnricher(jiraClient));
+    }
+
+    /**
+     * @param enricher fills in the linked issue columns; share one between exports to reuse its lookups
+     */
+    public TicketExporter(JiraApiClient jiraClient, String jiraUrl, ExportListener listener, LinkedIssueEnricher enricher) {
+        this.jiraClient = jiraClient;
+        this.jiraUrl = jiraUrl;
+        this.listener = metrics.track(listener);
+        this.enricher = enricher;
+    }
+
+    /**
+     * Whether updating an existing workbook also adds a sheet of what changed since its last export
+     * (or adds only that sheet). Off by default.
+     */
+    public void setChangeSheet(ExcelWriter.ChangeSheet changeSheet) {
+        this.changeSheet = changeSheet;
+    }
+
+    /**
+     * @return the file written, or null if nothing was exported
+     */
+    public Path exportSingleTicket(String ticketKey, Path exportDirectory, boolean updateExisting, String format) throws IOException, InterruptedException {
+        FlatFileWriter.Format flatFormat = FlatFileWriter.Format.of(format);
+        listener.onMessage("Fetching ticket: " + ticketKey);
+
+        String ticketResponse = jiraClient.getIssue(ticketKey, listener);
+        ColumnPlan plan = jiraClient.getColumnPlan();
+
+        JsonParser parser = new JsonParser(ticketResponse);
+        Ticket ticket = parser.parseSingleIssue(plan.extraFieldPaths());
+
+        if (ticket == null) {
+            listener.onMessage("Failed to retrieve ticket: " + ticketKey);
+            return null;
+        }
+
+        listener.onMessage("Successfully retrieved ticket: " + ticketKey);
+
+        // Create a list with single ticket for ExcelWriter compatibility
+        List<Ticket> tickets = List.of(ticket);
+        enrich(tickets, plan);
+
+        ensureDirectory(exportDirectory);
+
+        Path filePath = exportDirectory.resolve("ticket_" + ticketKey + extension(flatFormat));
+
+        if (flatFormat == null) {
+            ExcelWriter.writeTickets(tickets, filePath.toString(), jiraUrl, "Single Ticket", updateExisting, false, plan, changeSheet, listener);
+        } else {
+            writeFlatFile(tickets, filePath, flatFormat, plan, updateExisting);
+        }
+        listener.onMessage("Exported ticket to: " + filePath);
+        report(filePath, tickets.size());
+        return filePath;
+    }
+
+    /**
+     * Exports a list of issue keys (e.g. a release checklist) into one sheet. A single key goes through
+     * {@link #exportSingleTicket} so it can use the issue cache; longer lists are fetched in bulk through
+     * the search endpoint. Keys Jira didn't return are reported and listed in a {@code _missing.txt} file
+     * next to the workbook.
+     *
+     * @return the file written, or null if nothing was exported
+     */
+    public Path exportTicketList(List<String> ticketKeys, Path exportDirectory, boolean updateExisting, String format) throws IOException, InterruptedException {
+        if (ticketKeys.size() == 1) {
+            return exportSingleTicket(ticketKeys.get(0).trim(), exportDirectory, updateExisting, format);
+        }
+
+        FlatFileWriter.Format flatFormat = FlatFileWriter.Format.of(format);
+        listener.onMessage("Fetching " + ticketKeys.size() + " tickets...");
+        ColumnPlan plan = jiraClient.getColumnPlan();
+        List<Ticket> tickets = new ArrayList<>();
+        List<String> missing = jiraClient.searchTicketsByKeys(ticketKeys, tickets::add, listener);
+        listener.onMessage("Retrieved " + tickets.size() + " tickets.");
+        if (!missing.isEmpty()) {
+            listener.onMessage("Not found or not visible (" + missing.size() + "): " + String.join(", ", missing));
+        }
+        if (tickets.isEmpty()) {
+            return null;
+        }
+        enrich(tickets, plan);
+
+        ensureDirectory(exportDirectory);
+
+        String baseName = "tickets_" + tickets.get(0).getId() + "_and_" + (tickets.size() - 1) + "_more";
+        Path filePath = exportDirectory.resolve(baseName + extension(flatFormat));
+
+        if (flatFormat == null) {
+            ExcelWriter.writeTickets(tickets, filePath.toString(), jiraUrl, "Ticket List", updateExisting,
+                    tickets.size() > ExcelWriter.STREAMING_THRESHOLD, plan, changeSheet, listener);
+        } else {
+            writeFlatFile(tickets, filePath, flatFormat, plan, updateExisting);
+        }
+        listener.onMessage("Exported " + tickets.size() + " tickets to: " + filePath);
+        report(filePath, tickets.size());
+
+        if (!missing.isEmpty()) {
+            Path missingFile = exportDirectory.resolve(baseName + "_missing.txt");
+            Files.write(missingFile, missing);
+            listener.onMessage("Missing keys written to: " + missingFile);
+        }
+        return filePath;
+    }
+
+    /**
+     * Splits a free-form key list ("A-1, A-2 A-3" or one per line) into keys.
+     */
+    public static List<String> parseTicketKeys(String text) {
+        List<String> keys = new ArrayList<>();
+        for (String key : text.split("[,;\\s]+")) {
+            if (!key.isBlank()) {
+                keys.add(key.trim());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Fetches and writes a date range export in one go. CSV and NDJSON exports without incremental sync are
+     * written as the search decodes each page, with linked issue columns filled in a batch at a time.
+     *
+     * @param incrementalSync reuse the {@link TicketStore} of this search scope and only fetch what changed
+     * @return the file written, or null if nothing was exported
+     */
+    public Path exportDateRange(LocalDate startDate, LocalDate endDate, String assignee, String project, List<String> issueTypes,
+                                Path exportDirectory, boolean updateExisting, boolean incrementalSync, String format) throws IOException, InterruptedException {
+        FlatFileWriter.Format flatFormat = FlatFileWriter.Format.of(format);
+        if (flatFormat != null && !incrementalSync) {
+            return streamDateRange(startDate, endDate, assignee, project, issueTypes, exportDirectory, updateExisting, flatFormat);
+        }
+        List<Ticket> tickets = fetchDateRange(startDate, endDate, assignee, project, issueTypes, incrementalSync);
+        if (tickets.isEmpty()) {
+            return null;
+        }
+        return writeDateRange(tickets, startDate, endDate, assignee, project, exportDirectory, updateExisting, format);
+    }
+
+    /**
+     * Network half of {@link #exportDateRange}: runs the search (or incremental sync) and returns the
+     * tickets with their linked issue columns filled in.
+     */
+    public List<Ticket> fetchDateRange(LocalDate startDate, LocalDate endDate, String assignee, String project, List<String> issueTypes,
+                                       boolean incrementalSync) throws IOException, InterruptedException {
+        announceSearch(startDate, endDate, assignee, project);
+
+        ColumnPlan plan = jiraClient.getColumnPlan();
+        List<Ticket> tickets;
+        if (incrementalSync) {
+            // Reuse the tickets from the last export of this scope and only fetch what changed since
+            TicketStore store = TicketStore.open(TicketStore.defaultDirectory(), jiraUrl, assignee, project, issueTypes, plan);
+            TicketStore.SyncResult sync = store.sync(jiraClient, startDate, endDate, listener);
+            tickets = sync.tickets();
+            listener.onMessage((sync.incremental() ? "Incremental sync fetched " : "Full sync fetched ")
+                    + sync.fetched() + " tickets from Jira.");
+        } else {
+            tickets = new ArrayList<>();
+            jiraClient.searchTickets(startDate, endDate, assignee, project, issueTypes, tickets::add, listener);
+        }
+
+        listener.onMessage("Found " + tickets.size() + " tickets in the date range.");
+
+        if (tickets.isEmpty()) {
+            listener.onMessage(noTicketsMessage(assignee));
+        } else {
+            enrich(tickets, plan);
+        }
+        return tickets;
+    }
+
+    /**
+     * Writing half of {@link #exportDateRange}.
+     *
+     * @return the file written, or null if nothing was exported
+     */
+    public Path writeDateRange(List<Ticket> tickets, LocalDate startDate, LocalDate endDate, String assignee, String project,
+                               Path exportDirectory, boolean updateExisting, String format) throws IOException {
+        return writeDateRange(tickets, startDate, endDate, assignee, project, exportDirectory,
+                dateRangeFileName(startDate, endDate, assignee, project), updateExisting, format);
+    }
+
+    /**
+     * Same as above, writing to {@code fileName} (without extension) instead of the name derived from the scope.
+     */
+    public Path writeDateRange(List<Ticket> tickets, LocalDate startDate, LocalDate endDate, String assignee, String project,
+                               Path exportDirectory, String fileName, boolean updateExisting, String format) throws IOException {
+        ensureDirectory(exportDirectory);
+
+        FlatFileWriter.Format flatFormat = FlatFileWriter.Format.of(format);
+        Path filePath = exportDirectory.resolve(fileName + extension(flatFormat));
+
+        if (flatFormat == null) {
+            ExcelWriter.writeTickets(tickets, filePath.toString(), jiraUrl, startDate + " to " + endDate, updateExisting,
+                    tickets.size() > ExcelWriter.STREAMING_THRESHOLD, jiraClient.getColumnPlan(), changeSheet, listener);
+        } else {
+            writeFlatFile(tickets, filePath, flatFormat, jiraClient.getColumnPlan(), updateExisting);
+        }
+        listener.onMessage("Exported " + tickets.size() + " tickets to: " + filePath);
+        report(filePath, tickets.size());
+        return filePath;
+    }
+
+    // Tickets go to the file as their pages are decoded, so no list of the whole range is built. When the
+    // columns show linked issue details they are held back until a batch is full and enriched together.
+    private Path streamDateRange(LocalDate startDate, LocalDate endDate, String assignee, String project, List<String> issueTypes,
+                                 Path exportDirectory, boolean updateExisting, FlatFileWriter.Format format) throws IOException, InterruptedException {
+        announceSearch(startDate, endDate, assignee, project);
+        ensureDirectory(exportDirectory);
+        Path filePath = exportDirectory.resolve(dateRangeFileName(startDate, endDate, assignee, project) + format.extension());
+
+        ColumnPlan plan = jiraClient.getColumnPlan();
+        int batchSize = plan.usesLinkedIssueDetails() ? ENRICH_BATCH : 1;
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        boolean existed = updateExisting && Files.exists(filePath);
+        try (FlatFileWriter writer = FlatFileWriter.open(filePath, format, plan, updateExisting)) {
+            try {
+                jiraClient.searchTickets(startDate, endDate, assignee, project, issueTypes, ticket -> {
+                    batch.add(ticket);
+                    if (batch.size() >= batchSize) {
+                        writeBatch(writer, batch, plan);
+                    }
+                }, listener);
+                writeBatch(writer, batch, plan);
+            } catch (UncheckedIOException e) {
+                if (e.getCause() instanceof InterruptedIOException) {
+                    throw (InterruptedException) new InterruptedException("Export cancelled").initCause(e.getCause());
+                }
+                throw e.getCause();
+            }
+            if (writer.rowsWritten() == 0) {
+                listener.onMessage(noTicketsMessage(assignee));
+                return null;
+            }
+            writer.commit();
+            reportAppend(filePath, existed, writer.appending());
+            listener.onTimed(ExportMetrics.Phase.ROW_WRITING, writer.writeNanos(), writer.rowsWritten());
+            listener.onMessage("Exported " + writer.rowsWritten() + " tickets to: " + filePath);
+            report(filePath, writer.rowsWritten());
+            return filePath;
+        }
+    }
+
+    /**
+     * File name (without extension) used for a date range export, e.g.
+     * {@code tickets_2025-11-01_to_2025-11-30_project_DTVIEWER_assigned_to_CS1775239}.
+     */
+    public static String dateRangeFileName(LocalDate startDate, LocalDate endDate, String assignee, String project) {
+        String assigneeSuffix = assignee != null && !assignee.trim().isEmpty()
+                ? "_assigned_to_" + assignee.replace(" ", "_")
+                : "";
+        String projectSuffix = project != null && !project.trim().isEmpty() && !"All Projects".equals(project)
+                ? "_project_" + project
+                : "";
+        return "tickets_" + startDate + "_to_" + endDate + projectSuffix + assigneeSuffix;
+    }
+
+    private void announceSearch(LocalDate startDate, LocalDate endDate, String assignee, String project) {
+        StringBuilder searchMessage = new StringBuilder();
+        searchMessage.append("Searching for tickets from ").append(startDate).append(" to ").append(endDate);
+
+        if (project != null && !project.trim().isEmpty() && !"All Projects".equals(project)) {
+            searchMessage.append(" in project '").append(project).append("'");
+        }
+
+        if (assignee != null && !assignee.trim().isEmpty()) {
+            searchMessage.append(" assigned to '").append(assignee).append("'");
+        }
+
+        searchMessage.append("...");
+        listener.onMessage(searchMessage.toString());
+    }
+
+    // Shows where the time went and keeps it next to the export, e.g. tickets_....xlsx.report.json
+    private void report(Path exportFile, int tickets) {
+        listener.onMessage(metrics.summary());
+        Path reportFile = exportFile.resolveSibling(exportFile.getFileName() + ".report.json");
+        try {
+            metrics.writeReport(reportFile, exportFile, tickets);
+            listener.onMessage("Timing report written to: " + reportFile);
+        } catch (IOException e) {
+            // The export itself succeeded
+            listener.onMessage("Could not write the timing report: " + e.getMessage());
+        }
+    }
+
+    private static String noTicketsMessage(String assignee) {
+        return assignee != null && !assignee.trim().isEmpty()
+                ? "No tickets found for the selected date range and assignee."
+                : "No tickets found for the selected date range.";
+    }
+
+    private static String extension(FlatFileWriter.Format flatFormat) {
+        return flatFormat != null ? flatFormat.extension() : ".xlsx";
+    }
+
+    // CSV and NDJSON have no sheets, so updating an existing file adds the rows after the ones it has
+    private void writeFlatFile(List<Ticket> tickets, Path filePath, FlatFileWriter.Format format, ColumnPlan plan,
+                               boolean updateExisting) throws IOException {
+        boolean existed = updateExisting && Files.exists(filePath);
+        boolean appended = FlatFileWriter.writeTickets(tickets, filePath, format, plan, updateExisting, listener);
+        reportAppend(filePath, existed, appended);
+    }
+
+    private void reportAppend(Path filePath, boolean existed, boolean appended) {
+        if (appended) {
+            listener.onMessage("Added the rows to the end of " + filePath.getFileName() + ".");
+        } else if (existed) {
+            listener.onMessage("The header row of " + filePath.getFileName()
+                    + " doesn't match these columns, so the file was replaced instead of added to.");
+        }
+    }
+
+    // Called from the search sink, so failures leave as unchecked exceptions; streamDateRange unwraps them
+    private void writeBatch(FlatFileWriter writer, List<Ticket> batch, ColumnPlan plan) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            enrich(batch, plan);
+            for (Ticket ticket : batch) {
+                writer.write(ticket);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Export cancelled"));
+        }
+        batch.clear();
+    }
+
+    // The linked issue lookups are an extra round of requests, only worth it when a column shows them
+    private void enrich(List<Ticket> tickets, ColumnPlan plan) throws IOException, InterruptedException {
+        if (plan.usesLinkedIssueDetails()) {
+            enricher.enrich(tickets, listener);
+        }
+    }
+
+    private void ensureDirectory(Path exportDirectory) {
+        // Ensure export directory exists
+        try {
+            Files.createDirectories(exportDirectory);
+        } catch (IOException e) {
+            listener.onMessage("Error creating export directory: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.oracleinternship;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local copy of the tickets from the last export of a search scope (Jira URL, project, assignee and
+ * issue types), keyed by issue key and remembering when the scope was last synced. A later export of
+ * an overlapping date range only asks Jira for tickets updated since then and merges them in.
+ *
+ * <p>After a delta the store asks Jira for the keys the range search matches now, and keeps exactly those.
+ * Tickets that left the scope (reassigned, moved or retyped) or were deleted are dropped that way, and
+ * which tickets fall in the range is always Jira's answer, in the Jira user's time zone, never a local guess.
+ */
+public class TicketStore {
+
+    /** Outcome of {@link #sync}: the tickets in range and how many came over the wire. */
+    public record SyncResult(List<Ticket> tickets, int fetched, boolean incremental) {
+    }
+
+    // Re-fetch a little before the last sync so clock skew between us and Jira can't lose updates
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(10);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path file;
+    private final String assignee;
+    private final String project;
+    private final List<String> issueTypes;
+    private final Map<String, Ticket> ticketsByKey = new LinkedHashMap<>();
+    private LocalDate rangeStart;
+    private LocalDate rangeEnd;
+    private Instant lastSync;
+
+    private TicketStore(Path file, String assignee, String project, List<String> issueTypes) {
+        this.file = file;
+        this.assignee = assignee;
+        this.project = project;
+        this.issueTypes = issueTypes;
+    }
+
+    public static Path defaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".jiratoexcel", "store");
+    }
+
+    /**
+     * Opens the store for a search scope, loading it from {@code directory} if an earlier export saved one.
+     */
+    public static TicketStore open(Path directory, String baseUrl, String assignee, String project, List<String> issueTypes) throws IOException {
+        return open(directory, baseUrl, assignee, project, issueTypes, ColumnPlan.defaultPlan());
+    }
+
+    /**
+     * Same as {@link #open(Path, String, String, String, List)} for tickets fetched with the fields of
+     * {@code plan}. Stores are kept per field list, so changing the columns starts from a full fetch.
+     */
+    public static TicketStore open(Path directory, String baseUrl, String assignee, String project, List<String> issueTypes, ColumnPlan plan) throws IOException {
+        List<String> types = issueTypes != null ? issueTypes.stream().sorted().toList() : List.of();
+        String scope = baseUrl + "|" + nullToEmpty(project) + "|" + nullToEmpty(assignee) + "|" + String.join(",", types)
+                + "|" + plan.searchFields() + "|" + String.join(",", plan.extraFieldPaths());
+        TicketStore store = new TicketStore(directory.resolve(scopeHash(scope) + ".json"), assignee, project, types);
+        if (Files.exists(store.file)) {
+            store.load();
+        }
+        return store;
+    }
+
+    /**
+     * Brings the store up to date for {@code startDate..endDate} and returns the tickets in that range.
+     * Only the tickets updated since the last sync are fetched when the stored range already covers the
+     * start of the requested one; otherwise the whole range is fetched again. The store is saved afterwards.
+     */
+    public SyncResult sync(JiraApiClient client, LocalDate startDate, LocalDate endDate, ExportListener listener) throws IOException, InterruptedException {
+        Instant syncStart = Instant.now();
+        Instant deltaSince = deltaSince(startDate);
+        int[] fetched = {0};
+
+        if (deltaSince != null) {
+            client.searchTicketsUpdatedSince(assignee, project, issueTypes, deltaSince, ticket -> {
+                ticketsByKey.put(ticket.getId(), ticket);
+                fetched[0]++;
+            }, listener);
+            // The delta only sees tickets still in scope. Keeping just the keys the range search matches now
+            // drops the ones that left it or were deleted, and those outside a rolling window
+            Set<String> current = client.searchTicketKeys(startDate, endDate, assignee, project, issueTypes, listener);
+            ticketsByKey.keySet().retainAll(current);
+            List<String> missing = current.stream().filter(key -> !ticketsByKey.containsKey(key)).toList();
+            if (!missing.isEmpty()) {
+                client.searchTicketsByKeys(missing, ticket -> {
+                    ticketsByKey.put(ticket.getId(), ticket);
+                    fetched[0]++;
+                }, listener.withoutProgress());
+            }
+        } else {
+            // Jira's result set is the range, so nothing is filtered out locally
+            ticketsByKey.clear();
+            client.searchTickets(startDate, endDate, assignee, project, issueTypes, ticket -> {
+                ticketsByKey.put(ticket.getId(), ticket);
+                fetched[0]++;
+            }, listener);
+        }
+
+        List<Ticket> inRange = new ArrayList<>(ticketsByKey.values());
+        rangeStart = startDate;
+        rangeEnd = endDate;
+        lastSync = syncStart;
+        save();
+
+        return new SyncResult(inRange, fetched[0], deltaSince != null);
+    }
+
+    /**
+     * Point from which a delta query catches everything the stored set is missing for a range starting at
+     * {@code startDate}, or null when a full fetch is needed.
+     */
+    private Instant deltaSince(LocalDate startDate) {
+        if (lastSync == null || rangeStart == null || startDate.isBefore(rangeStart)) {
+            return null;
+        }
+        // JQL "created <= end" stops at the start of the end day in the Jira user's time zone, which we don't
+        // know, so this takes the earliest that day starts anywhere; anything from then on may be missing
+        Instant windowEnd = rangeEnd.atStartOfDay(ZoneOffset.MAX).toInstant();
+        Instant since = (windowEnd.isBefore(lastSync) ? windowEnd : lastSync).minus(SYNC_OVERLAP);
+        // When the gap reaches back past the new range a full fetch is cheaper than the delta
+        if (since.isBefore(startDate.atStartOfDay(ZoneOffset.MAX).toInstant())) {
+            return null;
+        }
+        return since;
+    }
+
+    private void load() throws IOException {
+        JsonNode root = MAPPER.readTree(file.toFile());
+        rangeStart = parseDate(root.path("rangeStart").asText(""));
+        rangeEnd = parseDate(root.path("rangeEnd").asText(""));
+        lastSync = root.hasNonNull("lastSync") ? Instant.ofEpochMilli(root.get("lastSync").asLong()) : null;
+
+        for (JsonNode node : root.path("tickets")) {
+            Ticket ticket = new Ticket();
+            ticket.setId(node.path("id").asText(""));
+            ticket.setSummary(node.path("summary").asText(""));
+            ticket.setStatus(node.path("status").asText(""));
+            ticket.setAssignee(node.path("assignee").asText(""));
+            ticket.setCustomfield_27101(node.path("customfield_27101").asText(""));
+            ticket.setIssuetype(node.path("issuetype").asText(""));
+            ticket.setResolutiondate(node.path("resolutiondate").asText(""));
+            ticket.setCustomfield_10704(node.path("customfield_10704").asText(""));
+            ticket.setPriority(node.path("priority").asText(""));
+            ticket.setCreated(node.path("created").asText(""));
+            ticket.setUpdated(node.path("updated").asText(""));
+            ticket.setDefectJira(node.path("defectJira").asText(""));
+            ticket.setLinkedIssues(node.path("linkedIssues").asText(""));
+            node.path("extra").fields().forEachRemaining(extra -> ticket.setExtraField(extra.getKey(), extra.getValue().asText("")));
+            ticketsByKey.put(ticket.getId(), ticket);
+        }
+    }
+
+    private void save() throws IOException {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("rangeStart", rangeStart != null ? rangeStart.toString() : null);
+        root.put("rangeEnd", rangeEnd != null ? rangeEnd.toString() : null);
+        root.put("lastSync", lastSync != null ? lastSync.toEpochMilli() : null);
+
+        ArrayNode tickets = root.putArray("tickets");
+        for (Ticket ticket : ticketsByKey.values()) {
+            ObjectNode node = tickets.addObject();
+            node.put("id", ticket.getId());
+            node.put("summary", ticket.getSummary());
+            node.put("status", ticket.getStatus());
+            node.put("assignee", ticket.getAssignee());
+            node.put("customfield_27101", ticket.getCustomfield_27101());
+            node.put("issuetype", ticket.getIssuetype());
+            node.put("resolutiondate", ticket.getResolutiondate());
+            node.put("customfield_10704", ticket.getCustomfield_10704());
+            node.put("priority", ticket.getPriority());
+            node.put("created", ticket.getCreated());
+            node.put("updated", ticket.getUpdated());
+            node.put("defectJira", ticket.getDefectJira());
+            node.put("linkedIssues", ticket.getLinkedIssues());
+            if (!ticket.getExtraFields().isEmpty()) {
+                ObjectNode extra = node.putObject("extra");
+                ticket.getExtraFields().forEach(extra::put);
+            }
+        }
+
+        // Write to a temp file first so a crash mid-write doesn't corrupt the previous store
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        MAPPER.writeValue(temp.toFile(), root);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static LocalDate parseDate(String value) {
+        return value.isEmpty() ? null : LocalDate.parse(value);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value.trim() : "";
+    }
+
+    private static String scopeHash(String scope) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(scope.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
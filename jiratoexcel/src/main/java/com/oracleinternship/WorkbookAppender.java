@@ -0,0 +1,738 @@
+package com.oracleinternship;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Adds sheets to an existing workbook without loading it. Every part of the file is copied through still
+ * compressed, except the small parts that list the sheets and styles (content types, workbook, workbook
+ * relationships, styles and the document properties), which are patched, and the new sheets, which are
+ * streamed out row by row. An update costs the same heap whether the workbook holds two sheets or two hundred.
+ *
+ * <p>Cells are written as inline strings and the cell styles {@link ExcelWriter} uses are
+ * appended to the workbook's styles, so the sheets look the same as one written through POI.
+ */
+final class WorkbookAppender {
+
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String PACKAGE_REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    private static final String CONTENT_TYPES_NS = "http://schemas.openxmlformats.org/package/2006/content-types";
+    private static final String EXTENDED_PROPERTIES_NS = "http://schemas.openxmlformats.org/officeDocument/2006/extended-properties";
+    private static final String VT_NS = "http://schemas.openxmlformats.org/officeDocument/2006/docPropsVTypes";
+    private static final String WORKSHEET_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml";
+
+    private static final String CONTENT_TYPES = "[Content_Types].xml";
+    private static final String WORKBOOK = "xl/workbook.xml";
+    private static final String WORKBOOK_RELS = "xl/_rels/workbook.xml.rels";
+    private static final String STYLES = "xl/styles.xml";
+    private static final String APP_PROPERTIES = "docProps/app.xml";
+
+    // Child order of <styleSheet>, for inserting a container the styles part doesn't have yet
+    private static final List<String> STYLE_SECTIONS = List.of("numFmts", "fonts", "fills", "borders", "cellStyleXfs",
+            "cellXfs", "cellStyles", "dxfs", "tableStyles", "colors", "extLst");
+    // IndexedColors.WHITE, DARK_GREEN and LIGHT_YELLOW
+    private static final int WHITE = 9;
+    private static final int DARK_GREEN = 58;
+    private static final int LIGHT_YELLOW = 43;
+    private static final int PROGRESS_INTERVAL = 500;
+
+    private WorkbookAppender() {
+    }
+
+    /**
+     * True when {@code file} is a workbook with the standard part layout that {@link #append} patches.
+     */
+    static boolean canAppend(File file) {
+        try (ZipFile zip = new ZipFile(file)) {
+            return zip.getEntry(CONTENT_TYPES) != null && zip.getEntry(WORKBOOK) != null
+                    && zip.getEntry(WORKBOOK_RELS) != null && zip.getEntry(STYLES) != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes {@code existing} plus the given sheets to {@code output}.
+     *
+     * A sheet whose name is taken gets a numbered one, see {@link ExcelWriter#uniqueSheetName}.
+     */
+    static void append(File existing, File output, List<ExcelWriter.SheetSpec> sheets, String baseUrl,
+                       ExportListener listener) throws IOException {
+        try (ZipFile source = new ZipFile(existing)) {
+            Document contentTypes = parse(source, CONTENT_TYPES);
+            Document workbook = parse(source, WORKBOOK);
+            Document workbookRels = parse(source, WORKBOOK_RELS);
+            Document styles = parse(source, STYLES);
+            Document appProperties = source.getEntry(APP_PROPERTIES) != null ? parse(source, APP_PROPERTIES) : null;
+
+            List<String> sheetParts = new ArrayList<>();
+            List<String> existingNames = new ArrayList<>();
+            List<String> newNames = new ArrayList<>();
+            Set<String> taken = new HashSet<>();
+            Element existingSheets = child(workbook.getDocumentElement(), "sheets");
+            if (existingSheets != null) {
+                for (Element sheet : children(existingSheets, MAIN_NS, "sheet")) {
+                    existingNames.add(sheet.getAttribute("name"));
+                    taken.add(sheet.getAttribute("name").toLowerCase(Locale.ROOT));
+                }
+            }
+            for (ExcelWriter.SheetSpec sheet : sheets) {
+                String name = ExcelWriter.uniqueSheetName(sheet.name(), taken);
+                taken.add(name.toLowerCase(Locale.ROOT));
+                newNames.add(name);
+                String sheetPart = nextSheetPart(source, sheetParts);
+                String relId = addWorkbookRelationship(workbookRels, sheetPart.substring("xl/".length()));
+                addSheet(workbook, name, relId);
+                addOverride(contentTypes, "/" + sheetPart);
+                sheetParts.add(sheetPart);
+            }
+            if (appProperties != null) {
+                addSheetTitles(appProperties, existingNames, newNames);
+            }
+            boolean highlights = sheets.stream().anyMatch(sheet -> sheet.highlight() != null);
+            CellStyles cellStyles = addStyles(styles, ExcelWriter.DATE_FORMAT, highlights);
+
+            long assemblyNanos;
+            try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(output)) {
+                long copyStart = System.nanoTime();
+                Enumeration<ZipArchiveEntry> entries = source.getEntriesInPhysicalOrder();
+                while (entries.hasMoreElements()) {
+                    ZipArchiveEntry entry = entries.nextElement();
+                    Document patched = switch (entry.getName()) {
+                        case CONTENT_TYPES -> contentTypes;
+                        case WORKBOOK -> workbook;
+                        case WORKBOOK_RELS -> workbookRels;
+                        case STYLES -> styles;
+                        case APP_PROPERTIES -> appProperties;
+                        default -> null;
+                    };
+                    if (patched != null) {
+                        out.putArchiveEntry(new ZipArchiveEntry(entry.getName()));
+                        out.write(serialize(patched));
+                        out.closeArchiveEntry();
+                    } else {
+                        // Earlier sheets, shared strings, theme...: copied without inflating them
+                        try (InputStream raw = source.getRawInputStream(entry)) {
+                            out.addRawArchiveEntry(entry, raw);
+                        }
+                    }
+                }
+                assemblyNanos = System.nanoTime() - copyStart;
+                for (int i = 0; i < sheets.size(); i++) {
+                    ExcelWriter.SheetSpec spec = sheets.get(i);
+                    ExportEvents.SheetWrite event = new ExportEvents.SheetWrite();
+                    event.begin();
+                    assemblyNanos += writeSheet(out, sheetParts.get(i), spec, baseUrl, cellStyles, listener);
+                    event.sheet = spec.name();
+                    event.rows = spec.tickets().size();
+                    event.columns = spec.plan().columns().size();
+                    event.writer = "append";
+                    event.commit();
+                }
+                long finishStart = System.nanoTime();
+                out.finish();
+                assemblyNanos += System.nanoTime() - finishStart;
+            }
+            listener.onTimed(ExportMetrics.Phase.WORKBOOK_WRITE, assemblyNanos, 1);
+        }
+    }
+
+    /**
+     * The zip entry of every sheet by name, in tab order, read from the workbook part and its relationships
+     * without loading anything else.
+     */
+    static Map<String, String> sheetParts(ZipFile source) throws IOException {
+        if (source.getEntry(WORKBOOK) == null || source.getEntry(WORKBOOK_RELS) == null) {
+            throw new IOException("Not a workbook: there is no " + WORKBOOK);
+        }
+        Map<String, String> targets = new HashMap<>();
+        for (Element relationship : children(parse(source, WORKBOOK_RELS).getDocumentElement(), PACKAGE_REL_NS, "Relationship")) {
+            String target = relationship.getAttribute("Target");
+            targets.put(relationship.getAttribute("Id"), target.startsWith("/") ? target.substring(1) : "xl/" + target);
+        }
+        Map<String, String> parts = new LinkedHashMap<>();
+        Element sheets = child(parse(source, WORKBOOK).getDocumentElement(), "sheets");
+        if (sheets != null) {
+            for (Element sheet : children(sheets, MAIN_NS, "sheet")) {
+                String part = targets.get(sheet.getAttributeNS(REL_NS, "id"));
+                if (part != null) {
+                    parts.put(sheet.getAttribute("name"), part);
+                }
+            }
+        }
+        return parts;
+    }
+
+    // cellXfs indexes of the appended styles; the highlighted ones are -1 unless a sheet needs them
+    private record CellStyles(int header, int data, int date, int highlightedData, int highlightedDate) {
+    }
+
+    // Returns the time spent assembling the sheet part from the spooled rows
+    private static long writeSheet(ZipArchiveOutputStream out, String sheetPart, ExcelWriter.SheetSpec spec, String baseUrl,
+                                   CellStyles styles, ExportListener listener) throws IOException {
+        List<Ticket> tickets = spec.tickets();
+        ExcelWriter.CellHighlight highlight = spec.highlight();
+        List<ColumnPlan.Column> columns = spec.plan().columns();
+        ColumnWidthEstimator widths = new ColumnWidthEstimator(columns.size());
+        boolean linkable = baseUrl != null && !baseUrl.isEmpty();
+
+        // <cols> comes before <sheetData> but the widths are only known once every row is seen, so the rows
+        // and links are spooled to compressed temp files first (as SXSSF does)
+        Path rowsFile = Files.createTempFile("jiratoexcel-rows-", ".xml.gz");
+        Path linksFile = Files.createTempFile("jiratoexcel-links-", ".xml.gz");
+        Path linkRelsFile = Files.createTempFile("jiratoexcel-links-", ".rels.gz");
+        try {
+            int links = 0;
+            long start = System.nanoTime();
+            try (Writer rows = gzipWriter(rowsFile); Writer hyperlinks = gzipWriter(linksFile); Writer linkRels = gzipWriter(linkRelsFile)) {
+                rows.write("<row r=\"1\">");
+                for (int i = 0; i < columns.size(); i++) {
+                    ColumnPlan.Column column = columns.get(i);
+                    if (column.maxWidth > 0) {
+                        widths.cap(i, column.maxWidth);
+                    }
+                    writeTextCell(rows, i, 1, column.header, styles.header());
+                    widths.measureHeader(i, column.header);
+                }
+                rows.write("</row>");
+
+                int row = 1;
+                String[] measured = new String[columns.size()];
+                for (Ticket ticket : tickets) {
+                    if (row % PROGRESS_INTERVAL == 0) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw new InterruptedIOException("Export cancelled");
+                        }
+                        listener.onRowsWritten(row - 1, tickets.size());
+                    }
+                    int index = row - 1;
+                    row++;
+                    rows.write("<row r=\"" + row + "\">");
+                    for (int i = 0; i < columns.size(); i++) {
+                        ColumnPlan.Column column = columns.get(i);
+                        boolean highlighted = highlight != null && highlight.isHighlighted(index, i);
+                        int dataStyle = highlighted ? styles.highlightedData() : styles.data();
+                        measured[i] = null;
+                        switch (column.kind) {
+                            case BLANK -> writeBlankCell(rows, i, row, dataStyle); // Filled in by hand
+                            case TEXT -> {
+                                String value = nullToEmpty(column.text.apply(ticket));
+                                writeTextCell(rows, i, row, value, dataStyle);
+                                measured[i] = value;
+                            }
+                            case DATE -> {
+                                double excelDate = column.date.applyAsDouble(ticket);
+                                if (excelDate < 0) {
+                                    writeBlankCell(rows, i, row, dataStyle);
+                                } else {
+                                    int dateStyle = highlighted ? styles.highlightedDate() : styles.date();
+                                    rows.write("<c r=\"" + cellRef(i, row) + "\" s=\"" + dateStyle + "\"><v>" + excelDate + "</v></c>");
+                                    measured[i] = ExcelWriter.DATE_WIDTH_SAMPLE;
+                                }
+                            }
+                            case LINK -> {
+                                String key = nullToEmpty(column.text.apply(ticket)).trim();
+                                writeTextCell(rows, i, row, key, dataStyle);
+                                measured[i] = key;
+                                if (linkable && !key.isEmpty()) {
+                                    links++;
+                                    hyperlinks.write("<hyperlink ref=\"" + cellRef(i, row) + "\" r:id=\"rId" + links + "\"/>");
+                                    linkRels.write("<Relationship Id=\"rId" + links + "\" Type=\"" + REL_NS + "/hyperlink\" Target=\"");
+                                    writeEscaped(linkRels, baseUrl + "/browse/" + key);
+                                    linkRels.write("\" TargetMode=\"External\"/>");
+                                }
+                            }
+                        }
+                    }
+                    rows.write("</row>");
+                    widths.measureRow(measured);
+                }
+            }
+
+            // Rows are timed up to here, spooling included; the rest is assembling the sheet part
+            listener.onTimed(ExportMetrics.Phase.ROW_WRITING, System.nanoTime() - start - widths.nanos(), tickets.size());
+            listener.onTimed(ExportMetrics.Phase.COLUMN_SIZING, widths.nanos(), tickets.size());
+            long assemblyStart = System.nanoTime();
+            out.putArchiveEntry(new ZipArchiveEntry(sheetPart));
+            Writer sheet = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            sheet.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+            sheet.write("<worksheet xmlns=\"" + MAIN_NS + "\" xmlns:r=\"" + REL_NS + "\">");
+            sheet.write("<dimension ref=\"A1:" + cellRef(columns.size() - 1, tickets.size() + 1) + "\"/>");
+            sheet.write("<cols>");
+            for (int i = 0; i < columns.size(); i++) {
+                sheet.write("<col min=\"" + (i + 1) + "\" max=\"" + (i + 1) + "\" width=\"" + widths.width(i) / 256.0 + "\" customWidth=\"true\"/>");
+            }
+            sheet.write("</cols><sheetData>");
+            copyGzip(rowsFile, sheet, out);
+            sheet.write("</sheetData>");
+            if (links > 0) {
+                sheet.write("<hyperlinks>");
+                copyGzip(linksFile, sheet, out);
+                sheet.write("</hyperlinks>");
+            }
+            sheet.write("<pageMargins left=\"0.7\" right=\"0.7\" top=\"0.75\" bottom=\"0.75\" header=\"0.3\" footer=\"0.3\"/>");
+            sheet.write("</worksheet>");
+            sheet.flush();
+            out.closeArchiveEntry();
+
+            if (links > 0) {
+                String fileName = sheetPart.substring(sheetPart.lastIndexOf('/') + 1);
+                out.putArchiveEntry(new ZipArchiveEntry("xl/worksheets/_rels/" + fileName + ".rels"));
+                Writer rels = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                rels.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+                rels.write("<Relationships xmlns=\"" + PACKAGE_REL_NS + "\">");
+                copyGzip(linkRelsFile, rels, out);
+                rels.write("</Relationships>");
+                rels.flush();
+                out.closeArchiveEntry();
+            }
+            listener.onRowsWritten(tickets.size(), tickets.size());
+            return System.nanoTime() - assemblyStart;
+        } finally {
+            Files.deleteIfExists(rowsFile);
+            Files.deleteIfExists(linksFile);
+            Files.deleteIfExists(linkRelsFile);
+        }
+    }
+
+    private static void writeTextCell(Writer out, int column, int row, String value, int style) throws IOException {
+        out.write("<c r=\"" + cellRef(column, row) + "\" s=\"" + style + "\" t=\"inlineStr\"><is><t");
+        if (!value.isEmpty() && (Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(value.length() - 1)))) {
+            out.write(" xml:space=\"preserve\"");
+        }
+        out.write('>');
+        writeEscaped(out, value);
+        out.write("</t></is></c>");
+    }
+
+    private static void writeBlankCell(Writer out, int column, int row, int style) throws IOException {
+        out.write("<c r=\"" + cellRef(column, row) + "\" s=\"" + style + "\"/>");
+    }
+
+    // Escapes markup and drops the characters XML 1.0 can't carry at all
+    private static void writeEscaped(Writer out, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.write("&amp;");
+                case '<' -> out.write("&lt;");
+                case '>' -> out.write("&gt;");
+                case '"' -> out.write("&quot;");
+                case '\r' -> out.write("&#13;");
+                default -> {
+                    if (c >= 0x20 && c != 0xFFFE && c != 0xFFFF || c == '\t' || c == '\n') {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+    }
+
+    // A1-style reference of a zero-based column and one-based row
+    private static String cellRef(int column, int row) {
+        StringBuilder letters = new StringBuilder();
+        for (int n = column + 1; n > 0; n = (n - 1) / 26) {
+            letters.insert(0, (char) ('A' + (n - 1) % 26));
+        }
+        return letters.append(row).toString();
+    }
+
+    private static Writer gzipWriter(Path file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8));
+    }
+
+    // Appends a spooled temp file to the entry being written through writer
+    private static void copyGzip(Path file, Writer writer, ZipArchiveOutputStream out) throws IOException {
+        writer.flush();
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            in.transferTo(out);
+        }
+    }
+
+    // First xl/worksheets/sheetN.xml that isn't taken
+    private static String nextSheetPart(ZipFile source, List<String> added) {
+        for (int n = 1; ; n++) {
+            String part = "xl/worksheets/sheet" + n + ".xml";
+            if (source.getEntry(part) == null && !added.contains(part)) {
+                return part;
+            }
+        }
+    }
+
+    private static String addWorkbookRelationship(Document rels, String target) {
+        Element root = rels.getDocumentElement();
+        Set<String> ids = new HashSet<>();
+        for (Element relationship : children(root, PACKAGE_REL_NS, "Relationship")) {
+            ids.add(relationship.getAttribute("Id"));
+        }
+        int n = ids.size() + 1;
+        while (ids.contains("rId" + n)) {
+            n++;
+        }
+        String id = "rId" + n;
+
+        Element relationship = createElement(rels, PACKAGE_REL_NS, "Relationship");
+        relationship.setAttribute("Id", id);
+        relationship.setAttribute("Type", REL_NS + "/worksheet");
+        relationship.setAttribute("Target", target);
+        root.appendChild(relationship);
+        return id;
+    }
+
+    private static void addSheet(Document workbook, String name, String relId) throws IOException {
+        Element root = workbook.getDocumentElement();
+        Element sheets = child(root, "sheets");
+        if (sheets == null) {
+            throw new IOException("The workbook part lists no sheets");
+        }
+        int maxSheetId = 0;
+        for (Element sheet : children(sheets, MAIN_NS, "sheet")) {
+            if (sheet.getAttribute("name").toLowerCase(Locale.ROOT).equals(name.toLowerCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("The workbook already contains a sheet named '" + name + "'");
+            }
+            maxSheetId = Math.max(maxSheetId, Integer.parseInt(sheet.getAttribute("sheetId")));
+        }
+
+        String relPrefix = root.lookupPrefix(REL_NS);
+        if (relPrefix == null) {
+            relPrefix = "r";
+            root.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, "xmlns:r", REL_NS);
+        }
+        Element sheet = createElement(workbook, MAIN_NS, "sheet");
+        sheet.setAttribute("name", name);
+        sheet.setAttribute("sheetId", Integer.toString(maxSheetId + 1));
+        sheet.setAttributeNS(REL_NS, relPrefix + ":id", relId);
+        sheets.appendChild(sheet);
+    }
+
+    // Excel also lists the sheet names in docProps/app.xml: TitlesOfParts holds every part name, and HeadingPairs
+    // says how many of them are of each kind. The kind is named in Excel's UI language, so the worksheets are
+    // found as the pair whose titles are the workbook's sheets. When they can't be found both lists are dropped,
+    // which Excel accepts and writes afresh on the next save.
+    private static void addSheetTitles(Document appProperties, List<String> existingNames, List<String> newNames) {
+        Element root = appProperties.getDocumentElement();
+        Element headingPairs = first(root, EXTENDED_PROPERTIES_NS, "HeadingPairs");
+        Element titlesOfParts = first(root, EXTENDED_PROPERTIES_NS, "TitlesOfParts");
+        if (headingPairs == null && titlesOfParts == null) {
+            return; // POI doesn't write them
+        }
+        Element pairs = headingPairs != null ? first(headingPairs, VT_NS, "vector") : null;
+        Element titles = titlesOfParts != null ? first(titlesOfParts, VT_NS, "vector") : null;
+        if (pairs == null || titles == null || !addSheetTitles(pairs, titles, existingNames, newNames)) {
+            for (Element element : new Element[] {headingPairs, titlesOfParts}) {
+                if (element != null) {
+                    root.removeChild(element);
+                }
+            }
+        }
+    }
+
+    private static boolean addSheetTitles(Element pairs, Element titles, List<String> existingNames, List<String> newNames) {
+        List<Element> variants = children(pairs, VT_NS, "variant");
+        List<Element> parts = children(titles, VT_NS, "lpstr");
+        int offset = 0;
+        for (int i = 0; i + 1 < variants.size(); i += 2) {
+            Element count = first(variants.get(i + 1), VT_NS, "i4");
+            if (count == null) {
+                return false;
+            }
+            int n;
+            try {
+                n = Integer.parseInt(count.getTextContent().trim());
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            if (n < 0 || offset + n > parts.size()) {
+                return false;
+            }
+            List<String> names = new ArrayList<>();
+            for (Element part : parts.subList(offset, offset + n)) {
+                names.add(part.getTextContent());
+            }
+            if (names.equals(existingNames)) {
+                Node before = offset + n < parts.size() ? parts.get(offset + n) : null;
+                for (String name : newNames) {
+                    Element title = createElement(titles.getOwnerDocument(), VT_NS, "lpstr");
+                    title.setTextContent(name);
+                    titles.insertBefore(title, before);
+                }
+                count.setTextContent(Integer.toString(n + newNames.size()));
+                titles.setAttribute("size", Integer.toString(parts.size() + newNames.size()));
+                return true;
+            }
+            offset += n;
+        }
+        return false;
+    }
+
+    private static void addOverride(Document contentTypes, String partName) {
+        Element override = createElement(contentTypes, CONTENT_TYPES_NS, "Override");
+        override.setAttribute("PartName", partName);
+        override.setAttribute("ContentType", WORKSHEET_CONTENT_TYPE);
+        contentTypes.getDocumentElement().appendChild(override);
+    }
+
+    // The same styles ExcelWriter creates: bold white on dark green, bordered wrapped text, dates, and their
+    // highlighted variants for changed cells
+    private static CellStyles addStyles(Document styles, String dateFormat, boolean highlights) {
+        Element root = styles.getDocumentElement();
+
+        Element numFmts = section(root, "numFmts");
+        int numFmtId = 163; // Custom formats start at 164
+        Integer existingId = null;
+        for (Element numFmt : children(numFmts, MAIN_NS, "numFmt")) {
+            int id = Integer.parseInt(numFmt.getAttribute("numFmtId"));
+            numFmtId = Math.max(numFmtId, id);
+            if (dateFormat.equals(numFmt.getAttribute("formatCode"))) {
+                existingId = id;
+            }
+        }
+        if (existingId != null) {
+            numFmtId = existingId;
+        } else {
+            numFmtId++;
+            Element numFmt = append(numFmts, "numFmt");
+            numFmt.setAttribute("numFmtId", Integer.toString(numFmtId));
+            numFmt.setAttribute("formatCode", dateFormat);
+        }
+
+        Element font = createElement(styles, MAIN_NS, "font");
+        append(font, "b");
+        append(font, "sz").setAttribute("val", "11.0");
+        append(font, "color").setAttribute("indexed", Integer.toString(WHITE));
+        append(font, "name").setAttribute("val", "Calibri");
+        int fontId = findOrAdd(section(root, "fonts"), font);
+
+        int fillId = addSolidFill(root, DARK_GREEN);
+
+        Element border = createElement(styles, MAIN_NS, "border");
+        for (String side : List.of("left", "right", "top", "bottom")) {
+            append(border, side).setAttribute("style", "thin");
+        }
+        append(border, "diagonal");
+        int borderId = findOrAdd(section(root, "borders"), border);
+
+        Element cellXfs = section(root, "cellXfs");
+        Element header = createElement(styles, MAIN_NS, "xf");
+        setXf(header, 0, fontId, fillId, borderId);
+        header.setAttribute("applyFont", "true");
+        header.setAttribute("applyFill", "true");
+        header.setAttribute("applyAlignment", "true");
+        append(header, "alignment").setAttribute("horizontal", "center");
+        int headerId = findOrAdd(cellXfs, header);
+
+        Element data = createElement(styles, MAIN_NS, "xf");
+        setXf(data, 0, 0, 0, borderId);
+        data.setAttribute("applyAlignment", "true");
+        append(data, "alignment").setAttribute("wrapText", "true");
+        int dataId = findOrAdd(cellXfs, data);
+
+        Element date = createElement(styles, MAIN_NS, "xf");
+        setXf(date, numFmtId, 0, 0, borderId);
+        date.setAttribute("applyNumberFormat", "true");
+        date.setAttribute("applyAlignment", "true");
+        append(date, "alignment").setAttribute("wrapText", "true");
+        int dateId = findOrAdd(cellXfs, date);
+
+        int highlightedData = -1;
+        int highlightedDate = -1;
+        if (highlights) {
+            int highlightFillId = addSolidFill(root, LIGHT_YELLOW);
+            Element changed = createElement(styles, MAIN_NS, "xf");
+            setXf(changed, 0, 0, highlightFillId, borderId);
+            changed.setAttribute("applyFill", "true");
+            changed.setAttribute("applyAlignment", "true");
+            append(changed, "alignment").setAttribute("wrapText", "true");
+            highlightedData = findOrAdd(cellXfs, changed);
+
+            Element changedDate = createElement(styles, MAIN_NS, "xf");
+            setXf(changedDate, numFmtId, 0, highlightFillId, borderId);
+            changedDate.setAttribute("applyNumberFormat", "true");
+            changedDate.setAttribute("applyFill", "true");
+            changedDate.setAttribute("applyAlignment", "true");
+            append(changedDate, "alignment").setAttribute("wrapText", "true");
+            highlightedDate = findOrAdd(cellXfs, changedDate);
+        }
+
+        for (String name : List.of("numFmts", "fonts", "fills", "borders", "cellXfs")) {
+            Element section = child(root, name);
+            section.setAttribute("count", Integer.toString(children(section, MAIN_NS, null).size()));
+        }
+        return new CellStyles(headerId, dataId, dateId, highlightedData, highlightedDate);
+    }
+
+    private static int addSolidFill(Element root, int indexedColor) {
+        Element fill = createElement(root.getOwnerDocument(), MAIN_NS, "fill");
+        Element patternFill = append(fill, "patternFill");
+        patternFill.setAttribute("patternType", "solid");
+        append(patternFill, "fgColor").setAttribute("indexed", Integer.toString(indexedColor));
+        return findOrAdd(section(root, "fills"), fill);
+    }
+
+    // The index of an entry of section equal to style, such as one an earlier update added, else of style
+    // appended to it; so updating a workbook again and again doesn't grow its styles
+    private static int findOrAdd(Element section, Element style) {
+        List<Element> entries = children(section, MAIN_NS, null);
+        for (int i = 0; i < entries.size(); i++) {
+            if (sameStyle(entries.get(i), style)) {
+                return i;
+            }
+        }
+        section.appendChild(style);
+        return entries.size();
+    }
+
+    // Same element, attributes and child elements. Not Node.isEqualNode, as attributes set through
+    // setAttribute have no local name while parsed ones do
+    private static boolean sameStyle(Element a, Element b) {
+        if (!a.getLocalName().equals(b.getLocalName()) || !Objects.equals(a.getNamespaceURI(), b.getNamespaceURI())) {
+            return false;
+        }
+        NamedNodeMap attributes = a.getAttributes();
+        if (attributes.getLength() != b.getAttributes().getLength()) {
+            return false;
+        }
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Node attribute = attributes.item(i);
+            if (!b.hasAttribute(attribute.getNodeName()) || !b.getAttribute(attribute.getNodeName()).equals(attribute.getNodeValue())) {
+                return false;
+            }
+        }
+        List<Element> aChildren = children(a, null, null);
+        List<Element> bChildren = children(b, null, null);
+        if (aChildren.size() != bChildren.size()) {
+            return false;
+        }
+        for (int i = 0; i < aChildren.size(); i++) {
+            if (!sameStyle(aChildren.get(i), bChildren.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void setXf(Element xf, int numFmtId, int fontId, int fillId, int borderId) {
+        xf.setAttribute("numFmtId", Integer.toString(numFmtId));
+        xf.setAttribute("fontId", Integer.toString(fontId));
+        xf.setAttribute("fillId", Integer.toString(fillId));
+        xf.setAttribute("borderId", Integer.toString(borderId));
+        xf.setAttribute("xfId", "0");
+        xf.setAttribute("applyBorder", "true");
+    }
+
+    // The styles section of that name, created in schema order if the part doesn't have one
+    private static Element section(Element root, String name) {
+        Element section = child(root, name);
+        if (section != null) {
+            return section;
+        }
+        section = createElement(root.getOwnerDocument(), MAIN_NS, name);
+        Node before = null;
+        for (Element existing : children(root, null, null)) {
+            if (STYLE_SECTIONS.indexOf(existing.getLocalName()) > STYLE_SECTIONS.indexOf(name)) {
+                before = existing;
+                break;
+            }
+        }
+        root.insertBefore(section, before);
+        return section;
+    }
+
+    private static Element append(Element parent, String localName) {
+        Element child = createElement(parent.getOwnerDocument(), MAIN_NS, localName);
+        parent.appendChild(child);
+        return child;
+    }
+
+    // Uses whatever prefix the part already binds the namespace to
+    private static Element createElement(Document document, String namespace, String localName) {
+        String prefix = document.getDocumentElement().lookupPrefix(namespace);
+        return document.createElementNS(namespace, prefix != null ? prefix + ":" + localName : localName);
+    }
+
+    private static Element child(Element parent, String localName) {
+        return first(parent, MAIN_NS, localName);
+    }
+
+    private static Element first(Element parent, String namespace, String localName) {
+        List<Element> matches = children(parent, namespace, localName);
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    // Child elements, optionally filtered by namespace and local name
+    private static List<Element> children(Element parent, String namespace, String localName) {
+        List<Element> result = new ArrayList<>();
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element element
+                    && (namespace == null || namespace.equals(element.getNamespaceURI()))
+                    && (localName == null || localName.equals(element.getLocalName()))) {
+                result.add(element);
+            }
+        }
+        return result;
+    }
+
+    private static Document parse(ZipFile source, String part) throws IOException {
+        try (InputStream in = source.getInputStream(source.getEntry(part))) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return factory.newDocumentBuilder().parse(in);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Could not read " + part + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] serialize(Document document) throws IOException {
+        document.setXmlStandalone(true);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new StreamResult(bytes));
+        } catch (TransformerException e) {
+            throw new IOException("Could not write " + document.getDocumentURI() + ": " + e.getMessage(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -1,12 +1,15 @@
 module jiratoexcel {
     requires java.base;
     requires java.net.http;
+    requires java.xml;
+    requires jdk.jfr;
     requires com.fasterxml.jackson.databind;
     requires com.fasterxml.jackson.core;
     requires com.fasterxml.jackson.annotation;
     requires org.apache.poi.poi;
     requires org.apache.poi.ooxml;
     requires org.apache.xmlbeans;
+    requires org.apache.commons.compress;
     requires javafx.base;
     requires javafx.controls;
     requires javafx.fxml;
@@ -0,0 +1,71 @@
+package com.oracleinternship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchRunnerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void jobsThatDifferOnlyInIssueTypesWriteDifferentFiles() throws IOException {
+        BatchRunner.JobFile jobFile = load("""
+                { "url": "https://jira.example.com/", "jobs": [
+                  { "from": "2025-01-01", "to": "2025-01-31", "project": "ABC" },
+                  { "from": "2025-01-01", "to": "2025-01-31", "project": "ABC", "issueTypes": ["Bug", "Task"] }
+                ] }
+                """);
+
+        assertEquals("tickets_2025-01-01_to_2025-01-31_project_ABC", jobFile.jobs().get(0).fileName());
+        assertEquals("tickets_2025-01-01_to_2025-01-31_project_ABC_types_Bug_Task", jobFile.jobs().get(1).fileName());
+    }
+
+    @Test
+    void namedJobsWriteFilesNamedAfterThem() throws IOException {
+        BatchRunner.JobFile jobFile = load("""
+                { "url": "https://jira.example.com/", "jobs": [
+                  { "name": "ABC bugs", "from": "2025-01-01", "to": "2025-01-31", "project": "ABC" },
+                  { "name": "ABC/tasks", "from": "2025-01-01", "to": "2025-01-31", "project": "ABC" }
+                ] }
+                """);
+
+        assertEquals("ABC_bugs", jobFile.jobs().get(0).fileName());
+        assertNotEquals(jobFile.jobs().get(0).fileName(), jobFile.jobs().get(1).fileName());
+    }
+
+    @Test
+    void jobsReplacingTheSameFileAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> load("""
+                { "url": "https://jira.example.com/", "jobs": [
+                  { "from": "2025-01-01", "to": "2025-01-31", "project": "ABC" },
+                  { "from": "2025-01-01", "to": "2025-01-31", "project": "ABC", "update": true }
+                ] }
+                """));
+    }
+
+    @Test
+    void jobsUpdatingTheSameFileAreAllowed() throws IOException {
+        BatchRunner.JobFile jobFile = load("""
+                { "url": "https://jira.example.com/", "update": true, "jobs": [
+                  { "from": "2025-01-01", "to": "2025-01-31", "project": "ABC", "assignee": "someone" },
+                  { "from": "2025-01-01", "to": "2025-01-31", "project": "ABC", "assignee": "someone" }
+                ] }
+                """);
+
+        assertEquals(jobFile.jobs().get(0).fileName(), jobFile.jobs().get(1).fileName());
+    }
+
+    private BatchRunner.JobFile load(String json) throws IOException {
+        Path file = directory.resolve("jobs.json");
+        Files.writeString(file, json);
+        return BatchRunner.loadJobFile(file);
+    }
+}
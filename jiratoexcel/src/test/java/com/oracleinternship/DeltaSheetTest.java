@@ -0,0 +1,144 @@
+package com.oracleinternship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DeltaSheetTest {
+
+    private static final DateTimeFormatter JIRA = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    private static final DateTimeFormatter LEGACY = DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm a", Locale.ENGLISH);
+
+    @TempDir
+    Path directory;
+
+    private final ColumnPlan plan = ColumnPlan.defaultPlan();
+
+    @Test
+    void unchangedTicketsMatchASheetWithDatesAsText() throws IOException {
+        List<Ticket> tickets = List.of(
+                ticket("ABC-1", "Open ticket", "Open", "2025-01-02T09:15:00.000+0000", null),
+                ticket("ABC-2", "Resolved ticket", "Closed", "2025-01-03T14:40:00.000-0500", "2025-01-10T16:05:00.000-0500"),
+                ticket("ABC-3", "Another one", "In Progress", "2025-01-04T23:59:00.000+0530", null));
+        File workbook = writeLegacyWorkbook(tickets);
+
+        DeltaSheet delta = DeltaSheet.compare(workbook, tickets, plan);
+
+        assertEquals("Changes since 'legacy': 0 new, 0 closed, 0 changed, 0 removed.", delta.summary());
+    }
+
+    @Test
+    void changedDateInASheetWithDatesAsTextIsReported() throws IOException {
+        File workbook = writeLegacyWorkbook(List.of(ticket("ABC-1", "Ticket", "Open", "2025-01-02T09:15:00.000+0000", null)));
+
+        DeltaSheet delta = DeltaSheet.compare(workbook,
+                List.of(ticket("ABC-1", "Ticket", "Open", "2025-01-02T09:16:00.000+0000", null)), plan);
+
+        assertEquals("Changes since 'legacy': 0 new, 0 closed, 1 changed, 0 removed.", delta.summary());
+    }
+
+    @Test
+    void changeWithACollidingStringHashIsReported() throws IOException {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNotEquals(DeltaSheet.textHash("Aa"), DeltaSheet.textHash("BB"));
+
+        File workbook = directory.resolve("tickets.xlsx").toFile();
+        ExcelWriter.writeTickets(List.of(ticket("ABC-1", "Aa", "Open", "2025-01-02T09:15:00.000+0000", null)),
+                workbook.getPath(), "", "range", false, false, plan, ExportListener.NONE);
+
+        DeltaSheet same = DeltaSheet.compare(workbook,
+                List.of(ticket("ABC-1", "Aa", "Open", "2025-01-02T09:15:00.000+0000", null)), plan);
+        DeltaSheet changed = DeltaSheet.compare(workbook,
+                List.of(ticket("ABC-1", "BB", "Open", "2025-01-02T09:15:00.000+0000", null)), plan);
+
+        assertEquals(0, count(same, "changed"));
+        assertEquals(1, count(changed, "changed"));
+    }
+
+    @Test
+    void changesOnlyRunsCompareWithThePreviousRun() throws IOException {
+        File workbook = directory.resolve("tickets.xlsx").toFile();
+        ExcelWriter.writeTickets(List.of(
+                        ticket("ABC-1", "First", "Open", "2025-01-02T09:15:00.000+0000", null),
+                        ticket("ABC-2", "Second", "Open", "2025-01-02T09:15:00.000+0000", null)),
+                workbook.getPath(), "", "range", false, false, plan, ExportListener.NONE);
+        List<Ticket> next = List.of(
+                ticket("ABC-1", "First, edited", "Open", "2025-01-02T09:15:00.000+0000", null),
+                ticket("ABC-3", "Third", "Open", "2025-01-02T09:15:00.000+0000", null));
+        ExcelWriter.writeTickets(next, workbook.getPath(), "", "range", true, false, plan,
+                ExcelWriter.ChangeSheet.ONLY, ExportListener.NONE);
+
+        DeltaSheet again = DeltaSheet.compare(workbook, next, plan);
+
+        assertEquals(0, count(again, "new"));
+        assertEquals(0, count(again, "changed"));
+        assertEquals(0, count(again, "removed"));
+    }
+
+    private static Ticket ticket(String key, String summary, String status, String created, String resolved) {
+        Ticket ticket = new Ticket();
+        ticket.setId(key);
+        ticket.setSummary(summary);
+        ticket.setStatus(status);
+        ticket.setCreated(created);
+        ticket.setUpdated(created);
+        if (resolved != null) {
+            ticket.setResolutiondate(resolved);
+        }
+        return ticket;
+    }
+
+    // A sheet laid out like the ones written before dates became date cells: every cell text, dates
+    // in the Jira author's wall-clock time as "MM/dd/yyyy hh:mm a"
+    private File writeLegacyWorkbook(List<Ticket> tickets) throws IOException {
+        File file = directory.resolve("legacy.xlsx").toFile();
+        List<ColumnPlan.Column> columns = plan.columns();
+        try (XSSFWorkbook wb = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = wb.createSheet("legacy");
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < columns.size(); i++) {
+                header.createCell(i).setCellValue(columns.get(i).header);
+            }
+            int row = 1;
+            for (Ticket ticket : tickets) {
+                Row r = sheet.createRow(row++);
+                for (int i = 0; i < columns.size(); i++) {
+                    ColumnPlan.Column column = columns.get(i);
+                    switch (column.kind) {
+                        case BLANK -> r.createCell(i).setCellValue("notes by hand");
+                        case TEXT, LINK -> r.createCell(i).setCellValue(column.text.apply(ticket));
+                        case DATE -> {
+                            String jira = column.text.apply(ticket);
+                            r.createCell(i).setCellValue(jira == null || jira.isEmpty() ? ""
+                                    : OffsetDateTime.parse(jira, JIRA).toLocalDateTime().format(LEGACY));
+                        }
+                    }
+                }
+            }
+            wb.write(out);
+        }
+        return file;
+    }
+
+    private static int count(DeltaSheet delta, String change) {
+        for (String part : delta.summary().split("[:,.] ?")) {
+            if (part.endsWith(" " + change)) {
+                return Integer.parseInt(part.trim().split(" ")[0]);
+            }
+        }
+        throw new AssertionError("No '" + change + "' in " + delta.summary());
+    }
+}
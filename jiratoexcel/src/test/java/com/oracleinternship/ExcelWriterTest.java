@@ -0,0 +1,58 @@
+package com.oracleinternship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExcelWriterTest {
+
+    private static final String SHEET = "2025-01-31 120000 from 2025-01-01 to 2025-01-31";
+
+    @TempDir
+    Path directory;
+
+    private final ColumnPlan plan = ColumnPlan.defaultPlan();
+
+    @Test
+    void sheetNamesAreCutToExcelsLimitAndNumberedWhenTaken() {
+        assertEquals("2025-01-31 120000 from 2025-01-", ExcelWriter.uniqueSheetName(SHEET, Set.of()));
+        assertEquals("2025-01-31 120000 from 2025 (2)",
+                ExcelWriter.uniqueSheetName(SHEET, Set.of("2025-01-31 120000 from 2025-01-")));
+        assertEquals("2025-01-31 120000 (2) changes",
+                ExcelWriter.uniqueSheetName("2025-01-31 120000 changes", Set.of("2025-01-31 120000 changes")));
+    }
+
+    @Test
+    void appendingASheetWhoseNameIsTakenAddsANumberedSheet() throws IOException {
+        File first = directory.resolve("first.xlsx").toFile();
+        ExcelWriter.writeTickets(List.of(ticket("ABC-1")), first.getPath(), "", "range", false, false, plan, ExportListener.NONE);
+        File second = directory.resolve("second.xlsx").toFile();
+        WorkbookAppender.append(first, second, List.of(new ExcelWriter.SheetSpec(SHEET, List.of(ticket("ABC-2")), plan, null)),
+                "", ExportListener.NONE);
+        File third = directory.resolve("third.xlsx").toFile();
+        WorkbookAppender.append(second, third, List.of(new ExcelWriter.SheetSpec(SHEET, List.of(ticket("ABC-3")), plan, null)),
+                "", ExportListener.NONE);
+
+        try (XSSFWorkbook wb = new XSSFWorkbook(new FileInputStream(third))) {
+            assertEquals(3, wb.getNumberOfSheets());
+            assertEquals("2025-01-31 120000 from 2025-01-", wb.getSheetName(1));
+            assertEquals("2025-01-31 120000 from 2025 (2)", wb.getSheetName(2));
+        }
+    }
+
+    private static Ticket ticket(String key) {
+        Ticket ticket = new Ticket();
+        ticket.setId(key);
+        ticket.setSummary("Summary of " + key);
+        ticket.setCreated("2025-01-02T09:15:00.000+0000");
+        return ticket;
+    }
+}
@@ -0,0 +1,75 @@
+package com.oracleinternship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FlatFileWriterTest {
+
+    @TempDir
+    Path directory;
+
+    private final ColumnPlan plan = ColumnPlan.defaultPlan();
+
+    @Test
+    void updatingANdjsonFileAddsItsRecords() throws IOException {
+        Path file = directory.resolve("tickets.ndjson");
+        assertFalse(write(file, FlatFileWriter.Format.NDJSON, "ABC-1"));
+        assertTrue(write(file, FlatFileWriter.Format.NDJSON, "ABC-2"));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("ABC-1"));
+        assertTrue(lines.get(1).contains("ABC-2"));
+    }
+
+    @Test
+    void updatingACsvFileWithTheSameHeaderAddsOnlyRows() throws IOException {
+        Path file = directory.resolve("tickets.csv");
+        write(file, FlatFileWriter.Format.CSV, "ABC-1");
+        String header = Files.readAllLines(file).get(0);
+        assertTrue(write(file, FlatFileWriter.Format.CSV, "ABC-2"));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        assertEquals(header, lines.get(0));
+        assertTrue(lines.get(1).contains("ABC-1"));
+        assertTrue(lines.get(2).contains("ABC-2"));
+    }
+
+    @Test
+    void aCsvFileWithAnotherHeaderIsReplaced() throws IOException {
+        Path file = directory.resolve("tickets.csv");
+        Files.writeString(file, "Something else\r\nvalue");
+        assertFalse(write(file, FlatFileWriter.Format.CSV, "ABC-1"));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains("ABC-1"));
+    }
+
+    @Test
+    void aRowAddedToAFileWithoutAFinalLineBreakStartsOnItsOwnLine() throws IOException {
+        Path file = directory.resolve("tickets.ndjson");
+        Files.writeString(file, "{\"Key\":\"OLD-1\"}");
+        write(file, FlatFileWriter.Format.NDJSON, "ABC-1");
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals("{\"Key\":\"OLD-1\"}", lines.get(0));
+        assertTrue(lines.get(1).contains("ABC-1"));
+    }
+
+    private boolean write(Path file, FlatFileWriter.Format format, String key) throws IOException {
+        Ticket ticket = new Ticket();
+        ticket.setId(key);
+        ticket.setSummary("Summary of " + key);
+        return FlatFileWriter.writeTickets(List.of(ticket), file, format, plan, true, ExportListener.NONE);
+    }
+}
@@ -0,0 +1,92 @@
+package com.oracleinternship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class JiraApiClientTest {
+
+    // OLD-2 was moved to NEW-7; Jira answers the old key with the issue under its new one
+    private static final Map<String, String> MOVED = Map.of("OLD-2", "NEW-7");
+
+    private HttpServer server;
+    private JiraApiClient client;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/rest/api/2/search", this::search);
+        server.start();
+        client = new JiraApiClient("http://localhost:" + server.getAddress().getPort() + "/", "token");
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void aMovedIssueAnswersTheKeyItWasAskedFor() throws Exception {
+        List<String> keys = new ArrayList<>();
+        List<String> missing = client.searchTicketsByKeys(List.of("ABC-1", "OLD-2", "GONE-3"), ticket -> keys.add(ticket.getId()),
+                ExportListener.NONE);
+
+        assertEquals(List.of("ABC-1", "NEW-7"), keys);
+        assertEquals(List.of("GONE-3"), missing);
+    }
+
+    @Test
+    void linkedIssuesAreHandedOverWithTheKeyAskedFor() throws Exception {
+        Map<String, String> answers = new LinkedHashMap<>();
+        List<String> missing = client.searchLinkedIssues(List.of("ABC-1", "OLD-2", "GONE-3"),
+                (key, issue) -> answers.put(key, issue.getId()), ExportListener.NONE);
+
+        assertEquals(Map.of("ABC-1", "ABC-1", "OLD-2", "NEW-7"), answers);
+        assertEquals(List.of("GONE-3"), missing);
+    }
+
+    // Knows ABC-1 and NEW-7 (formerly OLD-2); GONE-3 doesn't exist
+    private void search(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String jql = "";
+            for (String parameter : exchange.getRequestURI().getRawQuery().split("&")) {
+                if (parameter.startsWith("jql=")) {
+                    jql = URLDecoder.decode(parameter.substring(4), StandardCharsets.UTF_8);
+                }
+            }
+            String list = jql.startsWith("key in (") ? jql.substring(8, jql.length() - 1) : jql.substring("key = ".length());
+            List<String> issues = new ArrayList<>();
+            for (String key : list.split(",")) {
+                String answer = MOVED.getOrDefault(key.trim(), key.trim());
+                if (!answer.startsWith("GONE") && !issues.contains(answer)) {
+                    issues.add(answer);
+                }
+            }
+            String body = "{\"startAt\":0,\"maxResults\":1000,\"total\":" + issues.size() + ",\"issues\":["
+                    + issues.stream().map(key -> "{\"key\":\"" + key + "\",\"fields\":{\"summary\":\"" + key
+                            + "\",\"status\":{\"name\":\"Open\"}}}").collect(Collectors.joining(","))
+                    + "]}";
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.oracleinternship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TicketStoreTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    private static final LocalDate END = LocalDate.of(2025, 1, 31);
+
+    @TempDir
+    Path directory;
+
+    private HttpServer server;
+    private JiraApiClient client;
+    // What the stand-in Jira answers: the range search, the updated-since delta
+    private List<String> inRange = new ArrayList<>();
+    private List<String> updated = new ArrayList<>();
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/rest/api/2/search", this::search);
+        server.start();
+        client = new JiraApiClient("http://localhost:" + server.getAddress().getPort() + "/", "token");
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void aFullFetchKeepsEveryTicketJiraReturned() throws Exception {
+        // No created date to filter on locally; Jira said it is in range, so it is
+        inRange = List.of("ABC-1", "ABC-2");
+
+        assertEquals(List.of("ABC-1", "ABC-2"), keys(sync()));
+    }
+
+    @Test
+    void aDeltaDropsTicketsThatLeftTheScopeOrWereDeleted() throws Exception {
+        inRange = List.of("ABC-1", "ABC-2", "ABC-3");
+        sync();
+
+        // ABC-2 was reassigned away (so the scoped delta can't see it) and ABC-3 deleted; ABC-1 changed
+        inRange = List.of("ABC-1");
+        updated = List.of("ABC-1");
+        TicketStore.SyncResult result = sync();
+
+        assertTrue(result.incremental());
+        assertEquals(List.of("ABC-1"), keys(result));
+    }
+
+    @Test
+    void aDeltaFetchesTicketsInRangeThatTheStoreLacks() throws Exception {
+        inRange = List.of("ABC-1");
+        sync();
+
+        inRange = List.of("ABC-1", "ABC-4");
+        TicketStore.SyncResult result = sync();
+
+        assertTrue(result.incremental());
+        assertEquals(List.of("ABC-1", "ABC-4"), keys(result));
+    }
+
+    private TicketStore.SyncResult sync() throws Exception {
+        TicketStore store = TicketStore.open(directory, "http://jira/", null, "ABC", List.of(), ColumnPlan.defaultPlan());
+        return store.sync(client, START, END, ExportListener.NONE);
+    }
+
+    private static List<String> keys(TicketStore.SyncResult result) {
+        return result.tickets().stream().map(Ticket::getId).toList();
+    }
+
+    private void search(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Map<String, String> query = new HashMap<>();
+            for (String parameter : exchange.getRequestURI().getRawQuery().split("&")) {
+                int eq = parameter.indexOf('=');
+                query.put(parameter.substring(0, eq), URLDecoder.decode(parameter.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+            String jql = query.getOrDefault("jql", "");
+            List<String> issues;
+            if (jql.startsWith("updated")) {
+                issues = updated;
+            } else if (jql.startsWith("key in (")) {
+                issues = List.of(jql.substring(8, jql.length() - 1).split(",\\s*"));
+            } else {
+                issues = inRange;
+            }
+            int startAt = Integer.parseInt(query.getOrDefault("startAt", "0"));
+            List<String> page = startAt < issues.size() ? issues.subList(startAt, issues.size()) : List.of();
+            String body = "{\"startAt\":" + startAt + ",\"maxResults\":1000,\"total\":" + issues.size() + ",\"issues\":["
+                    + page.stream().map(key -> "{\"key\":\"" + key + "\",\"fields\":{\"summary\":\"" + key + "\"}}")
+                            .collect(Collectors.joining(","))
+                    + "]}";
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
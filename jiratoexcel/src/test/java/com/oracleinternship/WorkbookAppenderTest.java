@@ -0,0 +1,164 @@
+package com.oracleinternship;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WorkbookAppenderTest {
+
+    private static final String APP_PROPERTIES = "docProps/app.xml";
+
+    @TempDir
+    Path directory;
+
+    private final ColumnPlan plan = ColumnPlan.defaultPlan();
+
+    @Test
+    void newSheetsAreListedInTheDocumentProperties() throws IOException {
+        File existing = savedByExcel("Arbeitsblätter");
+        String sheet = existingSheetName(existing);
+
+        String app = appendAndReadProperties(existing, "2025-02-28 120000 changes");
+
+        // Counted with the worksheets, and listed after them but before the named range
+        assertEquals(1, count(app, "<vt:i4>2</vt:i4>"));
+        assertEquals(1, count(app, "<vt:i4>1</vt:i4>"));
+        assertEquals(1, count(app.substring(app.indexOf("<TitlesOfParts>")), "size=\"3\""));
+        assertEquals(List.of(sheet, "2025-02-28 120000 changes", "Print_Titles"), titles(app));
+    }
+
+    @Test
+    void propertiesThatDoNotMatchTheSheetsAreDropped() throws IOException {
+        File existing = savedByExcel("Worksheets");
+        rewriteProperties(existing, readProperties(existing).replace(">" + existingSheetName(existing) + "<", ">Renamed<"));
+
+        String app = appendAndReadProperties(existing, "2025-02-28 120000 changes");
+
+        assertFalse(app.contains("HeadingPairs"));
+        assertFalse(app.contains("TitlesOfParts"));
+        assertEquals(1, count(app, "<AppVersion>"));
+    }
+
+    @Test
+    void updatingAgainReusesTheStylesTheLastUpdateAdded() throws IOException {
+        File first = directory.resolve("first.xlsx").toFile();
+        ExcelWriter.writeTickets(List.of(ticket("ABC-1")), first.getPath(), "", "range", false, false, plan, ExportListener.NONE);
+        File second = directory.resolve("second.xlsx").toFile();
+        File third = directory.resolve("third.xlsx").toFile();
+        WorkbookAppender.append(first, second, List.of(highlighted("second", "ABC-2")), "", ExportListener.NONE);
+        WorkbookAppender.append(second, third, List.of(highlighted("third", "ABC-3")), "", ExportListener.NONE);
+
+        try (XSSFWorkbook before = new XSSFWorkbook(new FileInputStream(second));
+             XSSFWorkbook after = new XSSFWorkbook(new FileInputStream(third))) {
+            assertEquals(before.getNumberOfFonts(), after.getNumberOfFonts());
+            assertEquals(before.getStylesSource().getFills().size(), after.getStylesSource().getFills().size());
+            assertEquals(before.getStylesSource().getBorders().size(), after.getStylesSource().getBorders().size());
+            assertEquals(before.getNumCellStyles(), after.getNumCellStyles());
+        }
+    }
+
+    private ExcelWriter.SheetSpec highlighted(String name, String key) {
+        return new ExcelWriter.SheetSpec(name, List.of(ticket(key)), plan, (row, column) -> true);
+    }
+
+    // A workbook written through POI, with the sheet list Excel keeps in app.xml when it saves one
+    private File savedByExcel(String worksheetsLabel) throws IOException {
+        File file = directory.resolve("existing.xlsx").toFile();
+        ExcelWriter.writeTickets(List.of(ticket("ABC-1")), file.getPath(), "", "range", false, false, plan, ExportListener.NONE);
+        rewriteProperties(file, "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Properties xmlns=\"http://schemas.openxmlformats.org/officeDocument/2006/extended-properties\""
+                + " xmlns:vt=\"http://schemas.openxmlformats.org/officeDocument/2006/docPropsVTypes\">"
+                + "<Application>Microsoft Excel</Application>"
+                + "<HeadingPairs><vt:vector size=\"4\" baseType=\"variant\">"
+                + "<vt:variant><vt:lpstr>" + worksheetsLabel + "</vt:lpstr></vt:variant><vt:variant><vt:i4>1</vt:i4></vt:variant>"
+                + "<vt:variant><vt:lpstr>Named Ranges</vt:lpstr></vt:variant><vt:variant><vt:i4>1</vt:i4></vt:variant>"
+                + "</vt:vector></HeadingPairs>"
+                + "<TitlesOfParts><vt:vector size=\"2\" baseType=\"lpstr\">"
+                + "<vt:lpstr>" + existingSheetName(file) + "</vt:lpstr><vt:lpstr>Print_Titles</vt:lpstr>"
+                + "</vt:vector></TitlesOfParts>"
+                + "<AppVersion>16.0300</AppVersion></Properties>");
+        return file;
+    }
+
+    private String appendAndReadProperties(File existing, String sheetName) throws IOException {
+        File output = directory.resolve("output.xlsx").toFile();
+        WorkbookAppender.append(existing, output, List.of(new ExcelWriter.SheetSpec(sheetName, List.of(ticket("ABC-2")), plan, null)),
+                "", ExportListener.NONE);
+        try (XSSFWorkbook wb = new XSSFWorkbook(new FileInputStream(output))) {
+            assertEquals(2, wb.getNumberOfSheets());
+        }
+        return readProperties(output);
+    }
+
+    private static String existingSheetName(File file) throws IOException {
+        try (XSSFWorkbook wb = new XSSFWorkbook(new FileInputStream(file))) {
+            return wb.getSheetName(0);
+        }
+    }
+
+    private static String readProperties(File file) throws IOException {
+        try (ZipFile zip = new ZipFile(file); InputStream in = zip.getInputStream(zip.getEntry(APP_PROPERTIES))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void rewriteProperties(File file, String xml) throws IOException {
+        File rewritten = new File(file.getPath() + ".tmp");
+        try (ZipFile zip = new ZipFile(file); ZipOutputStream out = new ZipOutputStream(new FileOutputStream(rewritten))) {
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                if (entry.getName().equals(APP_PROPERTIES)) {
+                    out.write(xml.getBytes(StandardCharsets.UTF_8));
+                } else {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        in.transferTo(out);
+                    }
+                }
+                out.closeEntry();
+            }
+        }
+        if (!file.delete() || !rewritten.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    private static List<String> titles(String app) {
+        String vector = app.substring(app.indexOf("<TitlesOfParts>"), app.indexOf("</TitlesOfParts>"));
+        List<String> titles = new ArrayList<>();
+        for (String part : vector.split("<vt:lpstr>")) {
+            if (part.contains("</vt:lpstr>")) {
+                titles.add(part.substring(0, part.indexOf("</vt:lpstr>")));
+            }
+        }
+        return titles;
+    }
+
+    private static int count(String text, String fragment) {
+        return text.split(Pattern.quote(fragment), -1).length - 1;
+    }
+
+    private static Ticket ticket(String key) {
+        Ticket ticket = new Ticket();
+        ticket.setId(key);
+        ticket.setSummary("Summary of " + key);
+        ticket.setCreated("2025-01-02T09:15:00.000+0000");
+        return ticket;
+    }
+}